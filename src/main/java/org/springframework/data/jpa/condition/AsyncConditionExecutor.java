@@ -0,0 +1,323 @@
+package org.springframework.data.jpa.condition;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 异步条件查询执行器
+ * 每个查询在有界线程池中使用独立的EntityManager执行, 返回CompletableFuture
+ * 由最大并发数创建的执行器需调用 close() 释放线程池
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see [相关类/方法]
+ * @since [产品/模块版本]
+ */
+public class AsyncConditionExecutor implements AutoCloseable {
+    private static final Log LOG = LogFactory.getLog(AsyncConditionExecutor.class);
+
+    /**
+     * JPA标准查询超时提示(毫秒)
+     */
+    public static final String QUERY_TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+    private static final ScheduledExecutorService TIMER =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "jpa-condition-timeout");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    // 取消执行中的SQL可能阻塞于网络, 不占用超时计时线程与调用方线程
+    private static final ExecutorService CANCELLER =
+            Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "jpa-condition-cancel");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ExecutorService executor;
+
+    // 线程池由本类创建时, close() 负责关闭
+    private final boolean ownsExecutor;
+
+    private long timeoutMillis;
+
+    /* Constractor */
+
+    /**
+     * @param entityManagerFactory EntityManagerFactory
+     * @param executor             线程池, 由调用方负责关闭
+     */
+    public AsyncConditionExecutor(EntityManagerFactory entityManagerFactory,
+                                  ExecutorService executor) {
+        this(entityManagerFactory, executor, false);
+    }
+
+    /**
+     * @param entityManagerFactory EntityManagerFactory
+     * @param maxConcurrency       最大并发查询数, 线程池在 close() 时关闭
+     */
+    public AsyncConditionExecutor(EntityManagerFactory entityManagerFactory,
+                                  int maxConcurrency) {
+        this(entityManagerFactory, newBoundedExecutor(maxConcurrency), true);
+    }
+
+    private AsyncConditionExecutor(EntityManagerFactory entityManagerFactory,
+                                   ExecutorService executor, boolean ownsExecutor) {
+        this.entityManagerFactory = Objects.requireNonNull(entityManagerFactory);
+        this.executor = Objects.requireNonNull(executor);
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /* Query */
+
+    /**
+     * 异步查询全部结果, 使用默认超时
+     *
+     * @param domainClass   实体类
+     * @param specification 查询规格
+     * @param <T>           实体类类型
+     * @return CompletableFuture<List<T>>
+     */
+    public <T> CompletableFuture<List<T>> findAll(Class<T> domainClass,
+                                                  Specification<T> specification) {
+        return findAll(domainClass, specification, timeoutMillis);
+    }
+
+    /**
+     * 异步查询全部结果
+     *
+     * @param domainClass   实体类
+     * @param specification 查询规格
+     * @param timeoutMillis 查询超时(毫秒), 小于等于0时不限制
+     * @param <T>           实体类类型
+     * @return CompletableFuture<List<T>>
+     */
+    public <T> CompletableFuture<List<T>> findAll(Class<T> domainClass,
+                                                  Specification<T> specification,
+                                                  long timeoutMillis) {
+        return execute(em -> {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<T> query = cb.createQuery(domainClass);
+            Root<T> root = query.from(domainClass);
+            query.select(root);
+            ConditionQueryContext context = ConditionQueryContext.begin();
+            try {
+                Predicate predicate = specification.toPredicate(root, query, cb);
+                if (Objects.nonNull(predicate)) query.where(predicate);
+            } finally {
+                ConditionQueryContext.end();
+            }
+            TypedQuery<T> typedQuery = em.createQuery(query);
+            applyTimeout(typedQuery, timeoutMillis);
+            if (Objects.nonNull(context.getMaxResults()))
+                typedQuery.setMaxResults(context.getMaxResults());
+            context.getHints().forEach(typedQuery::setHint);
+            return typedQuery.getResultList();
+        }, timeoutMillis);
+    }
+
+    /**
+     * 异步统计结果数量
+     * 守护策略降级(CAP)的行数上限不作用于统计, 返回满足条件的全部数量
+     *
+     * @param domainClass   实体类
+     * @param specification 查询规格
+     * @param timeoutMillis 查询超时(毫秒), 小于等于0时不限制
+     * @param <T>           实体类类型
+     * @return CompletableFuture<Long>
+     */
+    public <T> CompletableFuture<Long> count(Class<T> domainClass,
+                                             Specification<T> specification,
+                                             long timeoutMillis) {
+        return execute(em -> {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Long> query = cb.createQuery(Long.class);
+            Root<T> root = query.from(domainClass);
+            query.select(cb.count(root));
+            ConditionQueryContext context = ConditionQueryContext.begin();
+            try {
+                Predicate predicate = specification.toPredicate(root, query, cb);
+                if (Objects.nonNull(predicate)) query.where(predicate);
+            } finally {
+                ConditionQueryContext.end();
+            }
+            TypedQuery<Long> typedQuery = em.createQuery(query);
+            applyTimeout(typedQuery, timeoutMillis);
+            context.getHints().forEach(typedQuery::setHint);
+            return typedQuery.getSingleResult();
+        }, timeoutMillis);
+    }
+
+    /**
+     * 在独立的EntityManager中异步执行
+     * 调用方取消或超时后, 未开始的任务不再执行, 执行中的任务被中断,
+     * 执行中的SQL通过 cancelStatement(EntityManager) 取消, 并由查询超时提示兜底
+     *
+     * @param function      Function<EntityManager, 结果>
+     * @param timeoutMillis 超时(毫秒), 小于等于0时不限制
+     * @param <R>           结果类型
+     * @return CompletableFuture<R>
+     */
+    public <R> CompletableFuture<R> execute(Function<EntityManager, R> function,
+                                            long timeoutMillis) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        // 执行中的EntityManager, 关闭前置空, 与取消互斥
+        AtomicReference<EntityManager> running = new AtomicReference<>();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                if (result.isDone()) return;
+                EntityManager em = entityManagerFactory.createEntityManager();
+                try {
+                    synchronized (running) {
+                        running.set(em);
+                    }
+                    if (!result.isDone())
+                        result.complete(function.apply(em));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    synchronized (running) {
+                        running.set(null);
+                    }
+                    em.close();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        if (timeoutMillis > 0) {
+            Future<?> timer = TIMER.schedule(() -> result.completeExceptionally(
+                    new TimeoutException("Condition query timed out after " + timeoutMillis + "ms")),
+                    timeoutMillis, TimeUnit.MILLISECONDS);
+            result.whenComplete((r, e) -> timer.cancel(false));
+        }
+        // 调用方放弃后在取消线程上取消执行中的SQL, 释放线程与连接
+        result.whenCompleteAsync((r, e) -> {
+            if (Objects.isNull(e)) return;
+            synchronized (running) {
+                EntityManager em = running.get();
+                if (Objects.nonNull(em)) cancelStatement(em);
+            }
+            task.cancel(true);
+        }, CANCELLER);
+        return result;
+    }
+
+    /**
+     * 关闭由最大并发数创建的线程池, 已提交的查询继续执行完毕
+     * 调用方传入的线程池不受影响
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) executor.shutdown();
+    }
+
+    /* Support */
+
+    /**
+     * 取消EntityManager上执行中的SQL, 在独立的取消线程上执行, 可以阻塞
+     * 默认支持Hibernate (Session#cancelQuery), 其他JPA实现可覆盖
+     *
+     * @param em 执行中的EntityManager
+     */
+    protected void cancelStatement(EntityManager em) {
+        try {
+            Class<?> session = Class.forName("org.hibernate.Session", false, em.getClass().getClassLoader());
+            Object delegate = em.unwrap(session);
+            session.getMethod("cancelQuery").invoke(delegate);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Unable to cancel running condition query: " + e);
+        }
+    }
+
+    /**
+     * 设置查询超时提示
+     *
+     * @param query         TypedQuery
+     * @param timeoutMillis 超时(毫秒)
+     */
+    protected void applyTimeout(TypedQuery<?> query, long timeoutMillis) {
+        if (timeoutMillis > 0)
+            query.setHint(QUERY_TIMEOUT_HINT, timeoutMillis);
+    }
+
+    /**
+     * 创建有界线程池, 运行环境支持时使用虚拟线程, 否则使用守护线程
+     *
+     * @param maxConcurrency 最大并发查询数
+     * @return ExecutorService
+     */
+    public static ExecutorService newBoundedExecutor(int maxConcurrency) {
+        if (maxConcurrency < 1)
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        return new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory());
+    }
+
+    // 通过反射获取虚拟线程工厂, 以兼容JDK 1.8编译
+    private static ThreadFactory threadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+            return runnable -> {
+                Thread thread = defaultFactory.newThread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    /* Getter And Setter */
+
+    public EntityManagerFactory getEntityManagerFactory() {
+        return entityManagerFactory;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public AsyncConditionExecutor setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        return this;
+    }
+}
@@ -0,0 +1,182 @@
+package org.springframework.data.jpa.condition;
+
+import org.springframework.beans.BeanUtils;
+
+import java.beans.PropertyDescriptor;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 增量查询游标, 记录上次读取到的水位值与主键
+ * 令牌为URL安全的Base64字符串, 可在轮询之间传递
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see JpaCondition#changedSince(String, String, ChangeCursor)
+ * @since [产品/模块版本]
+ */
+public class ChangeCursor {
+    private static final String SEPARATOR = "|";
+
+    private final Comparable<?> watermark;
+
+    private final Comparable<?> id;
+
+    /* Constractor */
+    public ChangeCursor(Comparable<?> watermark, Comparable<?> id) {
+        this.watermark = Objects.requireNonNull(watermark);
+        this.id = Objects.requireNonNull(id);
+    }
+
+    /* Factory */
+
+    /**
+     * 结果中最后一行对应的游标
+     *
+     * @param rows          按水位顺序返回的结果
+     * @param watermarkName 水位属性名
+     * @param idName        主键属性名
+     * @param previous      上次的游标, 结果为空时沿用
+     * @return ChangeCursor
+     */
+    public static ChangeCursor next(List<?> rows, String watermarkName, String idName, ChangeCursor previous) {
+        if (Objects.isNull(rows) || rows.isEmpty()) return previous;
+        Object last = rows.get(rows.size() - 1);
+        return new ChangeCursor(propertyValue(last, watermarkName), propertyValue(last, idName));
+    }
+
+    /**
+     * 解析令牌
+     *
+     * @param token 令牌, 为空时返回null表示从头读取
+     * @return ChangeCursor
+     * @throws IllegalArgumentException 令牌无效
+     */
+    public static ChangeCursor decode(String token) {
+        if (Objects.isNull(token) || token.isEmpty()) return null;
+        String text = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = text.indexOf(SEPARATOR);
+        if (separator < 0) throw new IllegalArgumentException("Invalid change cursor: " + token);
+        return new ChangeCursor(decodeValue(text.substring(0, separator)),
+                decodeValue(text.substring(separator + 1)));
+    }
+
+    /**
+     * 生成令牌
+     *
+     * @return 令牌
+     */
+    public String encode() {
+        String encodedWatermark = encodeValue(watermark);
+        if (encodedWatermark.contains(SEPARATOR))
+            throw new IllegalArgumentException("Change cursor watermark must not contain " + SEPARATOR);
+        String text = encodedWatermark + SEPARATOR + encodeValue(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 安全延迟对应的水位上界: 当前时间减安全延迟
+     *
+     * @param watermarkType 水位类型
+     * @param lag           安全延迟
+     * @return 水位上界
+     * @throws IllegalArgumentException 水位不是精确到时刻的时间类型
+     */
+    public static Comparable<?> horizon(Class<?> watermarkType, Duration lag) {
+        Instant horizon = Instant.now().minus(lag);
+        if (watermarkType == Timestamp.class)
+            return Timestamp.from(horizon);
+        if (watermarkType == Date.class)
+            return Date.from(horizon);
+        if (watermarkType == Instant.class)
+            return horizon;
+        if (watermarkType == LocalDateTime.class)
+            return LocalDateTime.ofInstant(horizon, ZoneId.systemDefault());
+        throw new IllegalArgumentException("Change lag requires a timestamp watermark, got " + watermarkType);
+    }
+
+    /* Support */
+
+    private static Comparable<?> propertyValue(Object model, String name) {
+        PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(model.getClass(), name);
+        if (Objects.isNull(descriptor))
+            throw new IllegalArgumentException("No property " + name + " on " + model.getClass().getName());
+        return (Comparable<?>) JpaConditionUtils.getPropertyValue(model, descriptor);
+    }
+
+    // 编码为 类型:值, 主键取值位于分隔符之后, 可包含分隔符
+    private static String encodeValue(Comparable<?> value) {
+        if (value instanceof Timestamp)
+            return "Timestamp:" + ((Timestamp) value).toInstant();
+        if (value instanceof java.sql.Date)
+            return "SqlDate:" + value;
+        if (value instanceof Date)
+            return "Date:" + ((Date) value).getTime();
+        if (value instanceof Long || value instanceof Integer || value instanceof String
+                || value instanceof BigInteger || value instanceof BigDecimal || value instanceof UUID
+                || value instanceof Instant || value instanceof LocalDate || value instanceof LocalDateTime)
+            return value.getClass().getSimpleName() + ":" + value;
+        throw new IllegalArgumentException("Unsupported change cursor value type: " + value.getClass().getName());
+    }
+
+    private static Comparable<?> decodeValue(String text) {
+        int separator = text.indexOf(':');
+        if (separator < 0) throw new IllegalArgumentException("Invalid change cursor value: " + text);
+        String value = text.substring(separator + 1);
+        switch (text.substring(0, separator)) {
+            case "Timestamp":
+                return Timestamp.from(Instant.parse(value));
+            case "SqlDate":
+                return java.sql.Date.valueOf(value);
+            case "Date":
+                return new Date(Long.parseLong(value));
+            case "Long":
+                return Long.valueOf(value);
+            case "Integer":
+                return Integer.valueOf(value);
+            case "String":
+                return value;
+            case "BigInteger":
+                return new BigInteger(value);
+            case "BigDecimal":
+                return new BigDecimal(value);
+            case "UUID":
+                return UUID.fromString(value);
+            case "Instant":
+                return Instant.parse(value);
+            case "LocalDate":
+                return LocalDate.parse(value);
+            case "LocalDateTime":
+                return LocalDateTime.parse(value);
+            default:
+                throw new IllegalArgumentException("Invalid change cursor value: " + text);
+        }
+    }
+
+    /* Getter */
+
+    public Comparable<?> getWatermark() {
+        return watermark;
+    }
+
+    public Comparable<?> getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + watermark + ", " + id + ")";
+    }
+}
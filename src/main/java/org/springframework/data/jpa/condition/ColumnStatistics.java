@@ -0,0 +1,104 @@
+package org.springframework.data.jpa.condition;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 实体类列统计信息, 用于按选择性排序条件
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see ColumnStatisticsProvider
+ * @since [产品/模块版本]
+ */
+public class ColumnStatistics {
+    private final Map<String, Long> distinctCounts = new ConcurrentHashMap<>();
+
+    private final Map<String, String> indexes = new ConcurrentHashMap<>();
+
+    /* Declaration */
+
+    /**
+     * 声明属性的不同值数量
+     *
+     * @param name  属性名
+     * @param count 不同值数量
+     * @return ColumnStatistics
+     */
+    public ColumnStatistics distinct(String name, long count) {
+        distinctCounts.put(name, count);
+        return this;
+    }
+
+    /**
+     * 声明属性所在的索引
+     *
+     * @param name      属性名
+     * @param indexName 索引名, 未知时为空串
+     * @return ColumnStatistics
+     */
+    public ColumnStatistics index(String name, String indexName) {
+        indexes.put(name, Objects.isNull(indexName) ? "" : indexName);
+        return this;
+    }
+
+    /* Selectivity */
+
+    /**
+     * 属性的不同值数量
+     *
+     * @param name 属性名
+     * @return 不同值数量, 未知时为0
+     */
+    public long distinctCount(String name) {
+        return distinctCounts.getOrDefault(name, 0L);
+    }
+
+    /**
+     * 属性是否在索引中
+     *
+     * @param name 属性名
+     * @return 是否索引
+     */
+    public boolean isIndexed(String name) {
+        return indexes.containsKey(name);
+    }
+
+    /**
+     * 选择性顺序, 不同值数量多者在前, 相同时索引属性在前, 均未知时保持原顺序
+     *
+     * @return Comparator<属性名>
+     */
+    public Comparator<String> selectivityOrder() {
+        return Comparator.comparingLong(this::distinctCount).reversed()
+                .thenComparing(name -> !isIndexed(name));
+    }
+
+    /**
+     * 在已生成条件的属性中选择最优索引
+     *
+     * @param names 属性名集合
+     * @return 索引名, 无可用索引时为null
+     */
+    public String bestIndex(Collection<String> names) {
+        return names.stream()
+                .filter(name -> !indexes.getOrDefault(name, "").isEmpty())
+                .max(Comparator.comparingLong(this::distinctCount))
+                .map(indexes::get)
+                .orElse(null);
+    }
+
+    /* Getter */
+
+    public Map<String, Long> getDistinctCounts() {
+        return Collections.unmodifiableMap(distinctCounts);
+    }
+
+    public Map<String, String> getIndexes() {
+        return Collections.unmodifiableMap(indexes);
+    }
+}
@@ -0,0 +1,21 @@
+package org.springframework.data.jpa.condition;
+
+/**
+ * 实体类列统计信息提供者
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see DeclaredColumnStatisticsProvider
+ * @see SampledColumnStatisticsProvider
+ * @since [产品/模块版本]
+ */
+@FunctionalInterface
+public interface ColumnStatisticsProvider {
+    /**
+     * 获得实体类的列统计信息
+     *
+     * @param javaType 实体类
+     * @return ColumnStatistics, 未知时为null
+     */
+    ColumnStatistics statistics(Class<?> javaType);
+}
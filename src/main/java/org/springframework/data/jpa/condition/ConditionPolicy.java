@@ -0,0 +1,228 @@
+package org.springframework.data.jpa.condition;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 条件查询守护策略, 在生成条件断言时校验, 防止全表扫描
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see JpaCondition#toPredicate()
+ * @since [产品/模块版本]
+ */
+public class ConditionPolicy {
+    private static final Log LOG = LogFactory.getLog(ConditionPolicy.class);
+
+    /**
+     * 违反策略时的处理方式
+     */
+    public enum Action {
+        /**
+         * 抛出 ConditionPolicyException
+         */
+        REJECT,
+        /**
+         * 降级为限制行数的查询, 执行方未开启 ConditionQueryContext 时按 REJECT 处理
+         */
+        CAP
+    }
+
+    /**
+     * 违反项
+     */
+    public enum Violation {
+        TOO_FEW_PREDICATES,
+        NO_INDEXED_PREDICATE,
+        LEADING_WILDCARD_LIKE,
+        NO_ROW_LIMIT
+    }
+
+    private int minSelectivePredicates;
+
+    private boolean requireIndexedPredicate;
+
+    private boolean allowLeadingWildcard = true;
+
+    private boolean requireRowLimit;
+
+    private int maxRows = 1000;
+
+    private Action action = Action.REJECT;
+
+    private final Map<Class<?>, Set<String>> declaredIndexes = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, Set<String>> indexes = new ConcurrentHashMap<>();
+
+    private final Map<Violation, LongAdder> violationCounts = new EnumMap<>(Violation.class);
+
+    /* Constractor */
+    public ConditionPolicy() {
+        for (Violation violation : Violation.values())
+            violationCounts.put(violation, new LongAdder());
+    }
+
+    /* Evaluate */
+
+    /**
+     * 校验条件
+     *
+     * @param condition JpaCondition
+     * @param cappable  执行方能否限制行数, 即是否开启了 ConditionQueryContext
+     * @return 生效的行数上限, 无限制时为null
+     * @throws ConditionPolicyException 违反策略且无法降级
+     */
+    public Integer evaluate(JpaCondition<?> condition, boolean cappable) {
+        return evaluate(condition, cappable, true);
+    }
+
+    /**
+     * 校验条件
+     *
+     * @param condition JpaCondition
+     * @param cappable  执行方能否限制行数, 即是否开启了 ConditionQueryContext
+     * @param record    是否计数并记录日志, 同一逻辑查询多次校验时仅记录一次
+     * @return 生效的行数上限, 无限制时为null
+     * @throws ConditionPolicyException 违反策略且无法降级
+     */
+    public Integer evaluate(JpaCondition<?> condition, boolean cappable, boolean record) {
+        Class<?> javaType = condition.javaType();
+        Set<String> constrained = condition.constrainedProperties();
+        List<Violation> violations = new ArrayList<>();
+        if (constrained.size() + condition.externalPredicates() < minSelectivePredicates)
+            violations.add(Violation.TOO_FEW_PREDICATES);
+        if (requireIndexedPredicate
+                && constrained.stream().noneMatch(indexedProperties(javaType)::contains))
+            violations.add(Violation.NO_INDEXED_PREDICATE);
+        if (!allowLeadingWildcard && condition.leadingWildcardLikes() > 0)
+            violations.add(Violation.LEADING_WILDCARD_LIKE);
+        // 执行方未开启 ConditionQueryContext 时声明的上限无人应用, 视为未限制
+        if (requireRowLimit && (Objects.isNull(condition.getMaxResults()) || !cappable))
+            violations.add(Violation.NO_ROW_LIMIT);
+        if (violations.isEmpty()) return condition.getMaxResults();
+
+        boolean reject = action == Action.REJECT || !cappable;
+        if (record) {
+            for (Violation violation : violations) {
+                violationCounts.get(violation).increment();
+                if (LOG.isWarnEnabled())
+                    LOG.warn("Condition query on " + javaType.getName() + " violates " + violation
+                            + (reject ? ", rejected" : ", capped to " + maxRows + " rows"));
+            }
+        }
+        if (reject) throw new ConditionPolicyException(javaType, violations);
+        Integer limit = condition.getMaxResults();
+        return Objects.isNull(limit) ? maxRows : Math.min(limit, maxRows);
+    }
+
+    /* Index */
+
+    /**
+     * 声明实体类的索引属性
+     *
+     * @param javaType 实体类
+     * @param names    属性名数组
+     * @return ConditionPolicy
+     */
+    public ConditionPolicy index(Class<?> javaType, String... names) {
+        declaredIndexes.computeIfAbsent(javaType, type -> ConcurrentHashMap.newKeySet())
+                .addAll(Arrays.asList(names));
+        indexes.remove(javaType);
+        return this;
+    }
+
+    /**
+     * 实体类的索引属性, 包括声明的属性与实体类映射中的索引, 联合索引仅计首列
+     *
+     * @param javaType 实体类
+     * @return 属性名集合
+     * @see JpaConditionUtils#indexes(Class)
+     */
+    public Set<String> indexedProperties(Class<?> javaType) {
+        return indexes.computeIfAbsent(javaType, type -> {
+            Set<String> names = new HashSet<>(declaredIndexes.getOrDefault(type, Collections.emptySet()));
+            names.addAll(JpaConditionUtils.indexes(type).keySet());
+            return Collections.unmodifiableSet(names);
+        });
+    }
+
+    /* Metric */
+
+    /**
+     * 违反项计数
+     *
+     * @param violation 违反项
+     * @return 累计次数
+     */
+    public long violationCount(Violation violation) {
+        return violationCounts.get(violation).sum();
+    }
+
+    /* Getter And Setter */
+
+    public int getMinSelectivePredicates() {
+        return minSelectivePredicates;
+    }
+
+    public ConditionPolicy setMinSelectivePredicates(int minSelectivePredicates) {
+        this.minSelectivePredicates = minSelectivePredicates;
+        return this;
+    }
+
+    public boolean isRequireIndexedPredicate() {
+        return requireIndexedPredicate;
+    }
+
+    public ConditionPolicy setRequireIndexedPredicate(boolean requireIndexedPredicate) {
+        this.requireIndexedPredicate = requireIndexedPredicate;
+        return this;
+    }
+
+    public boolean isAllowLeadingWildcard() {
+        return allowLeadingWildcard;
+    }
+
+    public ConditionPolicy setAllowLeadingWildcard(boolean allowLeadingWildcard) {
+        this.allowLeadingWildcard = allowLeadingWildcard;
+        return this;
+    }
+
+    public boolean isRequireRowLimit() {
+        return requireRowLimit;
+    }
+
+    public ConditionPolicy setRequireRowLimit(boolean requireRowLimit) {
+        this.requireRowLimit = requireRowLimit;
+        return this;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public ConditionPolicy setMaxRows(int maxRows) {
+        this.maxRows = maxRows;
+        return this;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public ConditionPolicy setAction(Action action) {
+        this.action = Objects.requireNonNull(action);
+        return this;
+    }
+}
@@ -0,0 +1,32 @@
+package org.springframework.data.jpa.condition;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 条件查询违反守护策略
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see ConditionPolicy
+ * @since [产品/模块版本]
+ */
+public class ConditionPolicyException extends IllegalStateException {
+    private final Class<?> javaType;
+
+    private final List<ConditionPolicy.Violation> violations;
+
+    public ConditionPolicyException(Class<?> javaType, List<ConditionPolicy.Violation> violations) {
+        super("Condition query on " + javaType.getName() + " rejected by policy: " + violations);
+        this.javaType = javaType;
+        this.violations = Collections.unmodifiableList(violations);
+    }
+
+    public Class<?> getJavaType() {
+        return javaType;
+    }
+
+    public List<ConditionPolicy.Violation> getViolations() {
+        return violations;
+    }
+}
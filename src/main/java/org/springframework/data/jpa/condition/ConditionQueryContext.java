@@ -0,0 +1,144 @@
+package org.springframework.data.jpa.condition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 条件查询上下文
+ * 由查询执行方开启, 收集条件在生成断言时决定的查询级设置(如行数上限、查询提示、分片键约束)
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see AsyncConditionExecutor
+ * @since [产品/模块版本]
+ */
+public class ConditionQueryContext {
+    private static final ThreadLocal<ConditionQueryContext> CURRENT = new ThreadLocal<>();
+
+    private Integer maxResults;
+
+    private final Map<String, Object> hints = new LinkedHashMap<>();
+
+    private String shardKey;
+
+    private boolean routing;
+
+    private boolean routed;
+
+    private final List<ShardKeyConstraint> shardKeyConstraints = new ArrayList<>();
+
+    /* Lifecycle */
+
+    /**
+     * 为当前线程开启上下文
+     *
+     * @return ConditionQueryContext
+     */
+    public static ConditionQueryContext begin() {
+        ConditionQueryContext context = new ConditionQueryContext();
+        CURRENT.set(context);
+        return context;
+    }
+
+    /**
+     * 当前线程的上下文
+     *
+     * @return ConditionQueryContext, 未开启时为null
+     */
+    public static ConditionQueryContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 关闭当前线程的上下文
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /* Getter And Setter */
+
+    public Integer getMaxResults() {
+        return maxResults;
+    }
+
+    /**
+     * 设置行数上限, 多次设置时取较小值
+     *
+     * @param maxResults 行数上限
+     */
+    public void setMaxResults(Integer maxResults) {
+        if (Objects.isNull(maxResults)) return;
+        this.maxResults = Objects.isNull(this.maxResults) ? maxResults : Math.min(this.maxResults, maxResults);
+    }
+
+    public Map<String, Object> getHints() {
+        return Collections.unmodifiableMap(hints);
+    }
+
+    /**
+     * 添加查询提示
+     *
+     * @param name  提示名
+     * @param value 提示值
+     */
+    public void hint(String name, Object value) {
+        hints.put(name, value);
+    }
+
+    public String getShardKey() {
+        return shardKey;
+    }
+
+    public ConditionQueryContext setShardKey(String shardKey) {
+        this.shardKey = shardKey;
+        return this;
+    }
+
+    public boolean isRouting() {
+        return routing;
+    }
+
+    /**
+     * 标记为仅用于分片路由的条件生成, 守护策略在此对整个逻辑查询计数一次, 条件据此跳过统计信息等副作用
+     *
+     * @param routing 是否仅用于路由
+     * @return ConditionQueryContext
+     */
+    public ConditionQueryContext setRouting(boolean routing) {
+        this.routing = routing;
+        return this;
+    }
+
+    public boolean isRouted() {
+        return routed;
+    }
+
+    /**
+     * 标记为已路由查询在单个分片上的执行, 守护策略已在路由时校验并计数, 分片上只校验不计数
+     *
+     * @param routed 是否为已路由的分片查询
+     * @return ConditionQueryContext
+     */
+    public ConditionQueryContext setRouted(boolean routed) {
+        this.routed = routed;
+        return this;
+    }
+
+    /**
+     * WHERE语句中必然成立的分片键约束
+     *
+     * @return List<ShardKeyConstraint>
+     */
+    public List<ShardKeyConstraint> getShardKeyConstraints() {
+        return Collections.unmodifiableList(shardKeyConstraints);
+    }
+
+    public void addShardKeyConstraints(List<ShardKeyConstraint> constraints) {
+        shardKeyConstraints.addAll(constraints);
+    }
+}
@@ -0,0 +1,36 @@
+package org.springframework.data.jpa.condition;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 声明式列统计信息
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see [相关类/方法]
+ * @since [产品/模块版本]
+ */
+public class DeclaredColumnStatisticsProvider implements ColumnStatisticsProvider {
+    private final Map<Class<?>, ColumnStatistics> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * 声明实体类的列统计信息, 实体类映射中的索引自动加入
+     *
+     * @param javaType   实体类
+     * @param statistics 列统计信息
+     * @return DeclaredColumnStatisticsProvider
+     */
+    public DeclaredColumnStatisticsProvider declare(Class<?> javaType, ColumnStatistics statistics) {
+        JpaConditionUtils.indexes(javaType).forEach((name, index) -> {
+            if (!statistics.isIndexed(name)) statistics.index(name, index);
+        });
+        this.statistics.put(javaType, statistics);
+        return this;
+    }
+
+    @Override
+    public ColumnStatistics statistics(Class<?> javaType) {
+        return statistics.get(javaType);
+    }
+}
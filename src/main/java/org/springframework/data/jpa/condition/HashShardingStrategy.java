@@ -0,0 +1,30 @@
+package org.springframework.data.jpa.condition;
+
+/**
+ * 哈希分片策略, 分片键取值按 hashCode 取模
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see [相关类/方法]
+ * @since [产品/模块版本]
+ */
+public class HashShardingStrategy implements ShardingStrategy {
+    private final int shardCount;
+
+    /* Constractor */
+    public HashShardingStrategy(int shardCount) {
+        if (shardCount < 1)
+            throw new IllegalArgumentException("shardCount must be positive");
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public int shardCount() {
+        return shardCount;
+    }
+
+    @Override
+    public int shardOf(Object key) {
+        return Math.floorMod(key.hashCode(), shardCount);
+    }
+}
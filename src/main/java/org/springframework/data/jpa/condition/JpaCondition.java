@@ -1,14 +1,29 @@
 package org.springframework.data.jpa.condition;
 
 import com.sun.istack.internal.NotNull;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.BeanUtils;
 
 import javax.persistence.criteria.*;
 import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.SingularAttribute;
 import java.beans.PropertyDescriptor;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -20,6 +35,16 @@ import java.util.stream.Stream;
  * @since [产品/模块版本]
  */
 public class JpaCondition<T> {
+    private static final Log LOG = LogFactory.getLog(JpaCondition.class);
+
+    // 声明类 -> 属性名 -> spring-beans 属性, 不引用元模型以免持有已关闭的 EntityManagerFactory
+    private static final Map<Class<?>, Map<String, PropertyDescriptor>> ATTRIBUTE_DESCRIPTORS =
+            new ConcurrentHashMap<>();
+
+    // 实体类 -> 属性名 -> [name+"Start", name+"End"] 属性
+    private static final Map<Class<?>, Map<String, PropertyDescriptor[]>> BETWEEN_DESCRIPTORS =
+            new ConcurrentHashMap<>();
+
     /* Cache */
 
     private T model;
@@ -34,8 +59,37 @@ public class JpaCondition<T> {
 
     private Set<Attribute<? super T, ?>> attributes;
 
+    private List<Attribute<? super T, ?>> orderedAttributes;
+
+    private ColumnStatistics statistics;
+
+    private final Map<Attribute<?, ?>, Path<?>> paths = new IdentityHashMap<>();
+
     private Predicate clausePredicate;
 
+    private ConditionPolicy policy;
+
+    private Integer maxResults;
+
+    private ColumnStatisticsProvider statisticsProvider;
+
+    /* Tracking */
+
+    // 本类生成及合并的断言 -> 断言成立时必然成立的约束, 属性约束为属性名, 外部断言为断言本身
+    private final Map<Predicate, Set<Object>> predicateConstraints = new IdentityHashMap<>();
+
+    // WHERE语句中必然成立的约束
+    private final Set<Object> clauseConstraints = new LinkedHashSet<>();
+
+    // 前置通配符的Like断言数
+    private int leadingWildcardLikes;
+
+    // 断言隐含的分片键约束
+    private final Map<Predicate, List<ShardKeyConstraint>> shardKeyConstraints = new IdentityHashMap<>();
+
+    // WHERE语句中必然成立的分片键约束
+    private final List<ShardKeyConstraint> clauseShardKeyConstraints = new ArrayList<>();
+
     /* Constractor */
     public JpaCondition(Root<T> root, CriteriaQuery<?> query,
                         CriteriaBuilder builder) {
@@ -49,11 +103,12 @@ public class JpaCondition<T> {
 
     /**
      * 获得实体类的Managed属性流
+     * 配置了列统计信息时按选择性排序
      *
      * @return Stream<Attribute>
      */
     protected Stream<Attribute<? super T, ?>> attributeStream() {
-        return attributes().stream();
+        return orderedAttributes().stream();
     }
 
     /**
@@ -102,6 +157,8 @@ public class JpaCondition<T> {
     public JpaCondition clauseAnd(Predicate... restrictions) {
         Predicate and = mergeAnd(restrictions);
         if (Objects.isNull(and)) return this;
+        clauseConstraints.addAll(constraints(and));
+        clauseShardKeyConstraints.addAll(shardKeyConstraints.getOrDefault(and, Collections.emptyList()));
         clausePredicate = Objects.isNull(clausePredicate) ? and : builder.and(clausePredicate, and);
         return this;
     }
@@ -117,6 +174,10 @@ public class JpaCondition<T> {
     public JpaCondition clauseOr(Predicate... restrictions) {
         Predicate or = mergeOr(restrictions);
         if (Objects.isNull(or)) return this;
+        // Or之后仅两侧共有的约束必然成立
+        if (Objects.isNull(clausePredicate)) clauseConstraints.addAll(constraints(or));
+        else clauseConstraints.retainAll(constraints(or));
+        clauseShardKeyConstraints.clear();
         clausePredicate = Objects.isNull(clausePredicate) ? or : builder.or(clausePredicate, or);
         return this;
     }
@@ -133,7 +194,14 @@ public class JpaCondition<T> {
         // 过滤空值
         Predicate[] predicates = Stream.of(restrictions).filter(Objects::nonNull).toArray(Predicate[]::new);
         if (predicates.length == 0) return null;
-        return builder.and(predicates);
+        Predicate and = trackMerged(builder.and(predicates), true, predicates);
+        // And合并保留各断言的分片键约束
+        for (Predicate predicate : predicates) {
+            List<ShardKeyConstraint> constraints = shardKeyConstraints.get(predicate);
+            if (Objects.nonNull(constraints))
+                shardKeyConstraints.computeIfAbsent(and, key -> new ArrayList<>()).addAll(constraints);
+        }
+        return and;
     }
 
     /**
@@ -148,20 +216,47 @@ public class JpaCondition<T> {
         // 过滤空值
         Predicate[] predicates = Stream.of(restrictions).filter(Objects::nonNull).toArray(Predicate[]::new);
         if (predicates.length == 0) return null;
-        return builder.or(predicates);
+        return trackMerged(builder.or(predicates), false, predicates);
     }
 
     /* Predicate Factory */
 
     /**
      * 生成条件断言
+     * 配置了守护策略时在此校验, 降级的行数上限写入 ConditionQueryContext
+     * 分片查询在路由时校验并计数一次, 各分片上只校验不计数; 路由时只收集分片键约束与行数上限
      *
      * @return 条件断言
+     * @throws ConditionPolicyException 违反守护策略
      */
     public Predicate toPredicate() {
+        ConditionQueryContext context = ConditionQueryContext.current();
+        Integer limit = Objects.isNull(policy) ? maxResults
+                : policy.evaluate(this, Objects.nonNull(context), Objects.isNull(context) || !context.isRouted());
+        if (routing()) {
+            context.setMaxResults(limit);
+            context.addShardKeyConstraints(clauseShardKeyConstraints);
+            return clausePredicate;
+        }
+        if (Objects.nonNull(context)) {
+            context.setMaxResults(limit);
+            context.addShardKeyConstraints(clauseShardKeyConstraints);
+            indexHint(context);
+        }
         return clausePredicate;
     }
 
+    /**
+     * 声明行数上限, 由开启了 ConditionQueryContext 的执行方应用, 如 AsyncConditionExecutor
+     *
+     * @param maxResults 行数上限
+     * @return JPA Condition
+     */
+    public JpaCondition<T> limit(int maxResults) {
+        this.maxResults = maxResults;
+        return this;
+    }
+
     /* Properties Predicate */
 
     /**
@@ -233,7 +328,7 @@ public class JpaCondition<T> {
      */
     public Predicate orEqualInclude(@NotNull String... names) {
         Predicate[] predicates = equalsInclude(names);
-        return builder.or(predicates);
+        return trackMerged(builder.or(predicates), false, predicates);
     }
 
     /* Property Predicate */
@@ -245,7 +340,19 @@ public class JpaCondition<T> {
      * @return Predicate
      */
     public Predicate equal(String name) {
-        return propertyPredicate(true, propertyDescriptor(name), builder::equal);
+        return equal(propertyDescriptor(name));
+    }
+
+    /**
+     * In条件
+     *
+     * @param name   属性名
+     * @param values 取值集合, 为空时忽略
+     * @return Predicate
+     */
+    public Predicate in(String name, Collection<?> values) {
+        if (Objects.isNull(values) || values.isEmpty()) return null;
+        return shardKeyValues(name, track(name, root.get(name).in(values)), () -> values);
     }
 
     /**
@@ -266,7 +373,7 @@ public class JpaCondition<T> {
      * @return Predicate
      */
     public Predicate greaterThan(String name, String valueName) {
-        return propertyComparablePredicate(name, propertyDescriptor(valueName), builder::greaterThan);
+        return propertyComparablePredicate(name, propertyDescriptor(valueName), true, builder::greaterThan);
     }
 
 
@@ -288,7 +395,7 @@ public class JpaCondition<T> {
      * @return Predicate
      */
     public Predicate greaterThanOrEqualTo(String name, String valueName) {
-        return propertyComparablePredicate(name, propertyDescriptor(valueName), builder::greaterThanOrEqualTo);
+        return propertyComparablePredicate(name, propertyDescriptor(valueName), true, builder::greaterThanOrEqualTo);
     }
 
 
@@ -310,7 +417,7 @@ public class JpaCondition<T> {
      * @return Predicate
      */
     public Predicate lessThan(String name, String valueName) {
-        return propertyComparablePredicate(name, propertyDescriptor(valueName), builder::lessThan);
+        return propertyComparablePredicate(name, propertyDescriptor(valueName), false, builder::lessThan);
     }
 
     /**
@@ -331,7 +438,7 @@ public class JpaCondition<T> {
      * @return Predicate
      */
     public Predicate lessThanOrEqualTo(String name, String valueName) {
-        return propertyComparablePredicate(name, propertyDescriptor(valueName), builder::lessThanOrEqualTo);
+        return propertyComparablePredicate(name, propertyDescriptor(valueName), false, builder::lessThanOrEqualTo);
     }
 
     /**
@@ -372,15 +479,275 @@ public class JpaCondition<T> {
      * @apiNote startValue <= root.get(name) < endValue
      */
     public <T extends Comparable<? super T>> Predicate between(String name, T startValue, T endValue) {
+        return this.between(name, root.get(name), startValue, endValue);
+    }
+
+    // startValue <= path < endValue
+    private <V extends Comparable<? super V>> Predicate between(String name, Expression<? extends V> path,
+                                                                V startValue, V endValue) {
         if (Objects.isNull(startValue) && Objects.isNull(endValue))
             return null;
         if (Objects.isNull(startValue))
-            return builder.lessThan(root.get(name), endValue);
+            return track(name, bound(name, builder.lessThan(path, endValue), null, endValue));
         if (Objects.isNull(endValue))
-            return builder.greaterThanOrEqualTo(root.get(name), startValue);
-        Predicate s = builder.greaterThanOrEqualTo(root.get(name), startValue);
-        Predicate e = builder.lessThan(root.get(name), endValue);
-        return this.mergeAnd(s, e);
+            return track(name, bound(name, builder.greaterThanOrEqualTo(path, startValue), startValue, null));
+        Predicate s = builder.greaterThanOrEqualTo(path, startValue);
+        Predicate e = builder.lessThan(path, endValue);
+        return track(name, bound(name, this.mergeAnd(s, e), startValue, endValue));
+    }
+
+    /* Incremental Predicate */
+
+    /**
+     * 增量条件, 仅匹配游标之后变更的数据, 查询实体时按水位、主键升序排序
+     * 以结果最后一行生成下次的游标, 即可逐批读取变更
+     * 水位在事务提交前取值, 晚提交的行可能低于已读取的水位而被跳过, 需要时使用带安全延迟的重载
+     *
+     * @param watermarkName 水位属性名, 如版本号或最后修改时间
+     * @param cursor        上次的游标, null时从头读取
+     * @return Predicate
+     * @apiNote idName 为实体类主键
+     * @see ChangeCursor#next(java.util.List, String, String, ChangeCursor)
+     */
+    public Predicate changedSince(String watermarkName, ChangeCursor cursor) {
+        return changedSince(watermarkName, root.getModel().getId(root.getModel().getIdType().getJavaType()).getName(),
+                cursor);
+    }
+
+    /**
+     * 增量条件, 仅匹配游标之后且早于当前时间减安全延迟的数据
+     * 安全延迟应大于最长事务耗时与时钟偏差之和, 水位晚于该时刻的行留待下次读取, 不会因晚提交而被跳过
+     *
+     * @param watermarkName 水位属性名, 须为时间类型
+     * @param cursor        上次的游标, null时从头读取
+     * @param lag           安全延迟
+     * @return Predicate
+     * @see ChangeCursor#horizon(Class, Duration)
+     */
+    public Predicate changedSince(String watermarkName, ChangeCursor cursor, Duration lag) {
+        return changedSince(watermarkName, root.getModel().getId(root.getModel().getIdType().getJavaType()).getName(),
+                cursor, lag);
+    }
+
+    /**
+     * 增量条件, 仅匹配游标之后变更的数据, 查询实体时按水位、主键升序排序
+     * 统计等结果类型不是实体的查询不排序
+     *
+     * @param watermarkName 水位属性名, 如版本号或最后修改时间
+     * @param idName        主键属性名, 水位相同时用于区分先后
+     * @param cursor        上次的游标, null时从头读取
+     * @return Predicate
+     * @apiNote watermark >= :watermark and (watermark > :watermark or (watermark = :watermark and id > :id)),
+     * 前导的 watermark >= :watermark 与OR等价, 使优化器可按水位索引做范围扫描
+     */
+    public Predicate changedSince(String watermarkName, String idName, ChangeCursor cursor) {
+        return changedSince(watermarkName, idName, cursor, null);
+    }
+
+    /**
+     * 增量条件, 仅匹配游标之后且早于当前时间减安全延迟的数据, 查询实体时按水位、主键升序排序
+     *
+     * @param watermarkName 水位属性名, 如版本号或最后修改时间
+     * @param idName        主键属性名, 水位相同时用于区分先后
+     * @param cursor        上次的游标, null时从头读取
+     * @param lag           安全延迟, null时不限制上界; 非null时水位须为时间类型
+     * @return Predicate
+     * @apiNote watermark >= :watermark and (watermark > :watermark or (watermark = :watermark and id > :id))
+     * and watermark <= now - lag
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Predicate changedSince(String watermarkName, String idName, ChangeCursor cursor, Duration lag) {
+        Path watermark = root.get(watermarkName);
+        Path id = root.get(idName);
+        // select count(e) ... order by 在部分数据库中无效
+        if (Objects.equals(query.getResultType(), root.getJavaType()))
+            query.orderBy(builder.asc(watermark), builder.asc(id));
+        Predicate horizon = Objects.isNull(lag) ? null
+                : builder.lessThanOrEqualTo(watermark, (Comparable) ChangeCursor.horizon(watermark.getJavaType(), lag));
+        if (Objects.isNull(cursor)) return track(watermarkName, horizon);
+        Comparable watermarkValue = cursor.getWatermark();
+        Comparable idValue = cursor.getId();
+        Predicate after = builder.greaterThan(watermark, watermarkValue);
+        Predicate same = builder.and(builder.equal(watermark, watermarkValue), builder.greaterThan(id, idValue));
+        // 冗余的下界, OR条件本身无法作为索引范围
+        Predicate changed = builder.and(builder.greaterThanOrEqualTo(watermark, watermarkValue),
+                builder.or(after, same));
+        return track(watermarkName, Objects.isNull(horizon) ? changed : builder.and(changed, horizon));
+    }
+
+    /* Metamodel Predicate */
+
+    /**
+     * Equal条件
+     *
+     * @param attribute 静态元模型属性, 如 Customer_.name
+     * @return Predicate
+     */
+    public Predicate equal(SingularAttribute<? super T, ?> attribute) {
+        Object value = attributeValue(attribute);
+        if (Objects.isNull(value)) return null;
+        return shardKeyValues(attribute.getName(),
+                track(attribute.getName(), builder.equal(path(attribute), value)), () -> Collections.singleton(value));
+    }
+
+    /**
+     * In条件
+     *
+     * @param attribute 静态元模型属性
+     * @param values    取值集合, 为空时忽略
+     * @return Predicate
+     */
+    public <V> Predicate in(SingularAttribute<? super T, V> attribute, Collection<? extends V> values) {
+        if (Objects.isNull(values) || values.isEmpty()) return null;
+        return shardKeyValues(attribute.getName(),
+                track(attribute.getName(), path(attribute).in(values)), () -> values);
+    }
+
+    /**
+     * Equal条件
+     *
+     * @param attribute  静态元模型属性
+     * @param attributes 其余静态元模型属性, 至少一个属性以免与无参的 equalsInclude(String...) 冲突
+     * @return Predicate
+     * @apiNote range:attributes
+     */
+    @SafeVarargs
+    public final Predicate[] equalsInclude(@NotNull SingularAttribute<? super T, ?> attribute,
+                                           SingularAttribute<? super T, ?>... attributes) {
+        return streamToArray(Stream.concat(Stream.of(attribute), Stream.of(attributes)).map(this::equal));
+    }
+
+    /**
+     * Equal条件
+     *
+     * @param attribute  静态元模型属性
+     * @param attributes 其余静态元模型属性
+     * @return Predicate
+     * @apiNote range:Entity.singularAttributes not in attributes
+     */
+    @SafeVarargs
+    public final Predicate[] equalsExclude(@NotNull SingularAttribute<? super T, ?> attribute,
+                                           SingularAttribute<? super T, ?>... attributes) {
+        return streamToArray(singularAttributeStreamExclude(attribute, attributes).map(this::equal));
+    }
+
+    /**
+     * Like条件
+     *
+     * @param attribute 静态元模型属性
+     * @return Predicate
+     */
+    public Predicate like(SingularAttribute<? super T, String> attribute) {
+        return contains(attribute.getName(), path(attribute), attributeValue(attribute));
+    }
+
+    /**
+     * Like条件, 包含所有attributes
+     *
+     * @param attribute  静态元模型属性
+     * @param attributes 其余静态元模型属性
+     * @return Predicate
+     */
+    @SafeVarargs
+    public final Predicate[] likesInclude(@NotNull SingularAttribute<? super T, String> attribute,
+                                          SingularAttribute<? super T, String>... attributes) {
+        return streamToArray(Stream.concat(Stream.of(attribute), Stream.of(attributes)).map(this::like));
+    }
+
+    /**
+     * Like条件, 排除所有attributes, 仅作用于String类型属性
+     *
+     * @param attribute  静态元模型属性
+     * @param attributes 其余静态元模型属性
+     * @return Predicate
+     */
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    public final Predicate[] likesExclude(@NotNull SingularAttribute<? super T, ?> attribute,
+                                          SingularAttribute<? super T, ?>... attributes) {
+        return streamToArray(singularAttributeStreamExclude(attribute, attributes)
+                .filter(singular -> singular.getJavaType() == String.class)
+                .map(singular -> like((SingularAttribute<? super T, String>) singular)));
+    }
+
+    /**
+     * 大于
+     *
+     * @param attribute 静态元模型属性
+     * @return Predicate
+     */
+    public <V extends Comparable<? super V>> Predicate greaterThan(SingularAttribute<? super T, V> attribute) {
+        V value = attributeValue(attribute);
+        if (Objects.isNull(value)) return null;
+        return track(attribute.getName(), bound(attribute.getName(), builder.greaterThan(path(attribute), value), value, null));
+    }
+
+    /**
+     * 大于或等于
+     *
+     * @param attribute 静态元模型属性
+     * @return Predicate
+     */
+    public <V extends Comparable<? super V>> Predicate greaterThanOrEqualTo(SingularAttribute<? super T, V> attribute) {
+        V value = attributeValue(attribute);
+        if (Objects.isNull(value)) return null;
+        return track(attribute.getName(), bound(attribute.getName(), builder.greaterThanOrEqualTo(path(attribute), value), value, null));
+    }
+
+    /**
+     * 小于
+     *
+     * @param attribute 静态元模型属性
+     * @return Predicate
+     */
+    public <V extends Comparable<? super V>> Predicate lessThan(SingularAttribute<? super T, V> attribute) {
+        V value = attributeValue(attribute);
+        if (Objects.isNull(value)) return null;
+        return track(attribute.getName(), bound(attribute.getName(), builder.lessThan(path(attribute), value), null, value));
+    }
+
+    /**
+     * 小于或等于
+     *
+     * @param attribute 静态元模型属性
+     * @return Predicate
+     */
+    public <V extends Comparable<? super V>> Predicate lessThanOrEqualTo(SingularAttribute<? super T, V> attribute) {
+        V value = attributeValue(attribute);
+        if (Objects.isNull(value)) return null;
+        return track(attribute.getName(), bound(attribute.getName(), builder.lessThanOrEqualTo(path(attribute), value), null, value));
+    }
+
+    /**
+     * Between条件
+     *
+     * @param attribute 静态元模型属性, Entity中必须有[name+"Start"]和[name+"End"]属性
+     * @return Predicate
+     * @apiNote startValue <= root.get(attribute) < endValue
+     */
+    public <V extends Comparable<? super V>> Predicate between(SingularAttribute<? super T, V> attribute) {
+        PropertyDescriptor[] descriptors = BETWEEN_DESCRIPTORS
+                .computeIfAbsent(javaType(), type -> new ConcurrentHashMap<>())
+                .computeIfAbsent(attribute.getName(), name -> new PropertyDescriptor[]{
+                        propertyDescriptor(name + "Start"), propertyDescriptor(name + "End")});
+        @SuppressWarnings("unchecked") V startValue = (V) JpaConditionUtils.getPropertyValue(model, descriptors[0]);
+        @SuppressWarnings("unchecked") V endValue = (V) JpaConditionUtils.getPropertyValue(model, descriptors[1]);
+        return this.between(attribute, startValue, endValue);
+    }
+
+    /**
+     * Between条件
+     *
+     * @param attribute  静态元模型属性
+     * @param startValue 起始值
+     * @param endValue   结束值
+     * @param <V>        值类型
+     * @return Predicate
+     * @apiNote startValue <= root.get(attribute) < endValue
+     */
+    public <V extends Comparable<? super V>> Predicate between(SingularAttribute<? super T, V> attribute,
+                                                               V startValue, V endValue) {
+        return this.between(attribute.getName(), path(attribute), startValue, endValue);
     }
 
     /* Custom Property Predicate */
@@ -463,7 +830,8 @@ public class JpaCondition<T> {
      * @return Predicate
      */
     protected Predicate equal(PropertyDescriptor descriptor) {
-        return propertyPredicate(true, descriptor, builder::equal);
+        return shardKeyValues(descriptor.getName(), propertyPredicate(true, descriptor, builder::equal),
+                () -> Collections.singleton(JpaConditionUtils.getPropertyValue(model, descriptor)));
     }
 
     /**
@@ -473,9 +841,38 @@ public class JpaCondition<T> {
      * @return
      */
     protected Predicate like(PropertyDescriptor descriptor) {
-        return propertyPredicate(descriptor,
-                (Expression<String> name, Object value) -> builder
-                        .like(name, "%" + value + "%"));
+        String name = descriptor.getName();
+        return contains(name, root.get(name), JpaConditionUtils.getPropertyValue(model, descriptor));
+    }
+
+    /**
+     * 包含该属性值, 声明了文本检索属性且索引完整时先由索引得到候选主键
+     * 索引未完整、无法回答、未命中或属性值含有 LIKE 通配符时回退为 SQL LIKE
+     * 检索仅读取内存索引, 路由时同样检索, 使路由与分片上按相同约束校验守护策略
+     *
+     * @param name  属性名
+     * @param path  属性表达式
+     * @param value 属性值
+     * @return Predicate
+     * @see TextSearchProperty
+     */
+    protected Predicate contains(String name, Expression<String> path, Object value) {
+        if (Objects.isNull(value)) return null;
+        Predicate like = builder.like(path, "%" + value + "%");
+        String text = String.valueOf(value);
+        TextSearchProperty property = hasWildcard(text) ? null : TextSearchProperty.of(javaType(), name);
+        // 不完整的索引缺少部分行, 候选会遗漏匹配
+        if (Objects.isNull(property) || !property.isComplete()) return trackLeadingWildcard(like);
+        Set<Object> ids = property.getIndex().search(text);
+        // 索引可能滞后于数据库, 未命中不代表没有匹配
+        if (Objects.isNull(ids) || ids.isEmpty()) return trackLeadingWildcard(like);
+        // 保留 LIKE 校验, 候选中已不匹配的行被过滤
+        return track(property.getIdName(), builder.and(root.get(property.getIdName()).in(ids), like));
+    }
+
+    // LIKE 中 % _ 为通配符, 部分数据库默认以反斜杠转义, 索引按字面匹配无法等价
+    private static boolean hasWildcard(String text) {
+        return text.indexOf('%') >= 0 || text.indexOf('_') >= 0 || text.indexOf('\\') >= 0;
     }
 
     /**
@@ -497,9 +894,9 @@ public class JpaCondition<T> {
      * @return
      */
     protected Predicate likeEnd(PropertyDescriptor descriptor) {
-        return propertyPredicate(true, descriptor,
+        return trackLeadingWildcard(propertyValuePredicate(true, descriptor,
                 (Expression<String> property, String value) -> builder
-                        .like(property, "%" + value));
+                        .like(property, "%" + value)));
     }
 
     /**
@@ -525,11 +922,19 @@ public class JpaCondition<T> {
      * @param <V>        属性zhi类型
      * @return 条件断言
      */
-    @SuppressWarnings("unchecked")
     protected <P, V> Predicate propertyPredicate(
             boolean ignoreNull,
             PropertyDescriptor descriptor,
             BiFunction<Expression<P>, V, Predicate> function) {
+        return track(descriptor.getName(), propertyValuePredicate(ignoreNull, descriptor, function));
+    }
+
+    // 属性匹配条件断言, 不计入守护策略的选择性断言
+    @SuppressWarnings("unchecked")
+    private <P, V> Predicate propertyValuePredicate(
+            boolean ignoreNull,
+            PropertyDescriptor descriptor,
+            BiFunction<Expression<P>, V, Predicate> function) {
         String name = descriptor.getName();
         Object value = JpaConditionUtils.getPropertyValue(model, descriptor);
         if (ignoreNull && value == null) return null;
@@ -540,6 +945,7 @@ public class JpaCondition<T> {
      * 属性比较条件, 对实体类属性尝试生成条件断言
      *
      * @param descriptor 属性反射
+     * @param lowerBound 属性值是否为下界, 用于分区裁剪
      * @param function   BiFunction<属性表达式, 属性值, 条件断言>
      * @param <P>        属性表达式类型
      * @param <V>        属性zhi类型
@@ -549,11 +955,138 @@ public class JpaCondition<T> {
     private <P extends Comparable<? super V>, V extends Comparable> Predicate propertyComparablePredicate(
             String name,
             PropertyDescriptor descriptor,
+            boolean lowerBound,
             BiFunction<Expression<P>, V, Predicate> function) {
         Object value = JpaConditionUtils.getPropertyValue(model, descriptor);
         if (Objects.isNull(value)) return null;
-        return function.apply(root.get(name), (V) value);
+        Predicate predicate = function.apply(root.get(name), (V) value);
+        return track(name, lowerBound ? bound(name, predicate, value, null) : bound(name, predicate, null, value));
+    }
+
+    /**
+     * 范围条件, 进行分区裁剪并记录分片键约束
+     *
+     * @param name      属性名
+     * @param predicate 范围条件
+     * @param lower     下界, 无下界时为null
+     * @param upper     上界, 无上界时为null
+     * @return 条件断言
+     */
+    protected Predicate bound(String name, Predicate predicate, Object lower, Object upper) {
+        Predicate pruned = prune(name, predicate, lower, upper);
+        return shardKeyConstraint(name, pruned,
+                () -> ShardKeyConstraint.range((Comparable<?>) lower, (Comparable<?>) upper));
+    }
+
+    // 分片键取值约束
+    private Predicate shardKeyValues(String name, Predicate predicate, Supplier<Collection<?>> values) {
+        return shardKeyConstraint(name, predicate, () -> ShardKeyConstraint.values(values.get()));
+    }
+
+    // 查询上下文指定的分片键上生成条件时, 记录该条件隐含的分片键约束
+    private Predicate shardKeyConstraint(String name, Predicate predicate,
+                                         Supplier<ShardKeyConstraint> constraint) {
+        if (Objects.isNull(predicate)) return null;
+        ConditionQueryContext context = ConditionQueryContext.current();
+        if (Objects.isNull(context) || !Objects.equals(name, context.getShardKey())) return predicate;
+        shardKeyConstraints.computeIfAbsent(predicate, key -> new ArrayList<>()).add(constraint.get());
+        return predicate;
     }
+
+    /**
+     * 分区裁剪, 过滤属性声明了分区键时附加分区键范围
+     * 下界为下界所在分区起点(闭区间), 上界为上界所在分区的下一分区起点(开区间)
+     *
+     * @param name      过滤属性名
+     * @param predicate 过滤条件
+     * @param lower     过滤下界, 无下界时为null
+     * @param upper     过滤上界, 无上界时为null
+     * @return 条件断言
+     * @see PartitionKey
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected Predicate prune(String name, Predicate predicate, Object lower, Object upper) {
+        PartitionKey key = PartitionKey.of(javaType(), name);
+        if (Objects.isNull(key) || Objects.isNull(predicate)) return predicate;
+        Path keyPath = root.get(key.getName());
+        Class<?> keyType = keyPath.getJavaType();
+        Comparable lowerKey = (Comparable) key.lowerBound(lower, keyType);
+        Comparable upperKey = (Comparable) key.upperBound(upper, keyType);
+        // 分区键取值可能细于分区粒度, 上界取下一分区起点的开区间
+        Predicate keyLower = Objects.isNull(lowerKey) ? null : builder.greaterThanOrEqualTo(keyPath, lowerKey);
+        Predicate keyUpper = Objects.isNull(upperKey) ? null : builder.lessThan(keyPath, upperKey);
+        return mergeAnd(predicate, keyLower, keyUpper);
+    }
+
+    /* Statistics Support */
+
+    // 按列统计信息附加最优索引提示
+    private void indexHint(ConditionQueryContext context) {
+        String hintName = JpaConditionUtils.getIndexHintName();
+        ColumnStatistics statistics = statistics();
+        if (Objects.isNull(hintName) || Objects.isNull(statistics)) return;
+        String index = statistics.bestIndex(constrainedProperties());
+        if (Objects.isNull(index)) return;
+        context.hint(hintName, String.format(JpaConditionUtils.getIndexHintFormat(), index));
+        if (LOG.isDebugEnabled())
+            LOG.debug("Index hint for " + javaType().getName() + ": " + index);
+    }
+
+    // 当前条件是否仅用于分片路由
+    private static boolean routing() {
+        ConditionQueryContext context = ConditionQueryContext.current();
+        return Objects.nonNull(context) && context.isRouting();
+    }
+
+    /* Tracking Support */
+
+    // 记录属性断言, 覆盖生成过程中合并得到的约束
+    private Predicate track(String name, Predicate predicate) {
+        if (Objects.isNull(predicate)) return null;
+        predicateConstraints.put(predicate, Collections.singleton(name));
+        return predicate;
+    }
+
+    // 记录前置通配符的Like断言, 不构成选择性约束
+    private Predicate trackLeadingWildcard(Predicate predicate) {
+        if (Objects.isNull(predicate)) return null;
+        leadingWildcardLikes++;
+        predicateConstraints.put(predicate, Collections.emptySet());
+        return predicate;
+    }
+
+    // 合并断言的约束, And 取并集, Or 取交集
+    private Predicate trackMerged(Predicate merged, boolean and, Predicate... predicates) {
+        Set<Object> constraints = new LinkedHashSet<>();
+        for (int i = 0; i < predicates.length; i++) {
+            if (and || i == 0) constraints.addAll(constraints(predicates[i]));
+            else constraints.retainAll(constraints(predicates[i]));
+        }
+        predicateConstraints.put(merged, constraints);
+        return merged;
+    }
+
+    // 断言成立时必然成立的约束, 外部断言视为一个约束
+    private Set<Object> constraints(Predicate predicate) {
+        Set<Object> constraints = predicateConstraints.get(predicate);
+        return Objects.nonNull(constraints) ? constraints : Collections.singleton(predicate);
+    }
+
+    // WHERE语句中必然受约束的属性
+    Set<String> constrainedProperties() {
+        return clauseConstraints.stream().filter(String.class::isInstance).map(String.class::cast)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    // WHERE语句中必然成立的外部断言数
+    int externalPredicates() {
+        return (int) clauseConstraints.stream().filter(constraint -> !(constraint instanceof String)).count();
+    }
+
+    int leadingWildcardLikes() {
+        return leadingWildcardLikes;
+    }
+
     /* Reader */
 
     protected Class<? extends T> javaType() {
@@ -570,6 +1103,29 @@ public class JpaCondition<T> {
         }
         return attributes;
     }
+
+    protected List<Attribute<? super T, ?>> orderedAttributes() {
+        if (orderedAttributes == null) {
+            List<Attribute<? super T, ?>> ordered = new ArrayList<>(attributes());
+            ColumnStatistics statistics = statistics();
+            if (Objects.nonNull(statistics)) {
+                ordered.sort(Comparator.comparing(Attribute::getName, statistics.selectivityOrder()));
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Conjunct order for " + javaType().getName() + ": "
+                            + ordered.stream().map(Attribute::getName).collect(Collectors.toList()));
+            }
+            orderedAttributes = ordered;
+        }
+        return orderedAttributes;
+    }
+
+    protected ColumnStatistics statistics() {
+        // 路由时不触发统计信息采样
+        if (statistics == null && statisticsProvider != null && !routing()) {
+            statistics = statisticsProvider.statistics(javaType());
+        }
+        return statistics;
+    }
     /* Method */
 
     /**
@@ -580,11 +1136,56 @@ public class JpaCondition<T> {
      */
     protected PropertyDescriptor propertyDescriptor(
             Attribute<? super T, ?> attribute) {
+        return propertyDescriptor(propertyName(attribute));
+    }
+
+    /**
+     * 静态元模型属性的属性路径, 按属性标识缓存
+     *
+     * @param attribute 静态元模型属性
+     * @param <V>       属性值类型
+     * @return Path
+     */
+    @SuppressWarnings("unchecked")
+    protected <V> Path<V> path(SingularAttribute<? super T, V> attribute) {
+        return (Path<V>) paths.computeIfAbsent(attribute, key -> root.get(attribute));
+    }
+
+    /**
+     * 静态元模型属性在实体类中的属性值, 读取方法按声明类与属性名缓存
+     *
+     * @param attribute 静态元模型属性
+     * @param <V>       属性值类型
+     * @return 属性值
+     */
+    @SuppressWarnings("unchecked")
+    protected <V> V attributeValue(SingularAttribute<? super T, V> attribute) {
+        Class<?> declaringType = attribute.getDeclaringType().getJavaType();
+        PropertyDescriptor descriptor = ATTRIBUTE_DESCRIPTORS
+                .computeIfAbsent(declaringType, type -> new ConcurrentHashMap<>())
+                .computeIfAbsent(propertyName(attribute), name -> BeanUtils.getPropertyDescriptor(declaringType, name));
+        if (Objects.isNull(descriptor))
+            throw new IllegalArgumentException("No bean property for attribute " + attribute.getName());
+        return (V) JpaConditionUtils.getPropertyValue(model, descriptor);
+    }
+
+    // 排除指定属性后的实体类单值属性流
+    private Stream<SingularAttribute<? super T, ?>> singularAttributeStreamExclude(
+            SingularAttribute<? super T, ?> attribute, SingularAttribute<? super T, ?>[] attributes) {
+        Set<Attribute<?, ?>> excludes = Collections.newSetFromMap(new IdentityHashMap<>());
+        excludes.add(attribute);
+        Collections.addAll(excludes, attributes);
+        return attributeStream()
+                .filter(candidate -> candidate instanceof SingularAttribute && !excludes.contains(candidate))
+                .map(candidate -> (SingularAttribute<? super T, ?>) candidate);
+    }
+
+    // 解决 PropertyDescriptor 无法正确获取 isFoo 属性的问题
+    private static String propertyName(Attribute<?, ?> attribute) {
         String name = attribute.getName();
-        // 解决 PropertyDescriptor 无法正确获取 isFoo 属性的问题
         if (name.length() > 2 && name.startsWith("is") && Character.isUpperCase(name.charAt(2)))
             name = Character.toLowerCase(name.charAt(2)) + name.substring(3);
-        return propertyDescriptor(name);
+        return name;
     }
 
     /**
@@ -619,6 +1220,8 @@ public class JpaCondition<T> {
 
     public void setRoot(Root<T> root) {
         this.root = root;
+        // 属性路径依赖Root
+        paths.clear();
     }
 
     public CriteriaQuery<?> getQuery() {
@@ -644,4 +1247,28 @@ public class JpaCondition<T> {
     public void setJavaType(Class<? extends T> javaType) {
         this.javaType = javaType;
     }
+
+    public ConditionPolicy getPolicy() {
+        return policy;
+    }
+
+    public JpaCondition<T> setPolicy(ConditionPolicy policy) {
+        this.policy = policy;
+        return this;
+    }
+
+    public Integer getMaxResults() {
+        return maxResults;
+    }
+
+    public ColumnStatisticsProvider getStatisticsProvider() {
+        return statisticsProvider;
+    }
+
+    public JpaCondition<T> setStatisticsProvider(ColumnStatisticsProvider statisticsProvider) {
+        this.statisticsProvider = statisticsProvider;
+        this.statistics = null;
+        this.orderedAttributes = null;
+        return this;
+    }
 }
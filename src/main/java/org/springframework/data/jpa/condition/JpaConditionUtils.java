@@ -2,15 +2,27 @@ package org.springframework.data.jpa.condition;
 
 import org.springframework.data.jpa.domain.Specification;
 
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -23,6 +35,20 @@ import java.util.stream.Stream;
  * @since [产品/模块版本]
  */
 public class JpaConditionUtils {
+    // 默认守护策略
+    private static volatile ConditionPolicy defaultPolicy;
+
+    // 默认列统计信息
+    private static volatile ColumnStatisticsProvider defaultStatisticsProvider;
+
+    // 索引提示名与提示值格式
+    private static volatile String indexHintName;
+
+    private static volatile String indexHintFormat = "%s";
+
+    // 实体类映射中的索引
+    private static final Map<Class<?>, Map<String, String>> INDEXES = new ConcurrentHashMap<>();
+
     /**
      * 实例化Jpa条件查询
      *
@@ -35,7 +61,53 @@ public class JpaConditionUtils {
      */
     public static <T> JpaCondition<T> condition(
             Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb, T model) {
-        return new JpaCondition<>(root, query, cb).setModel(model);
+        return new JpaCondition<>(root, query, cb).setModel(model).setPolicy(defaultPolicy)
+                .setStatisticsProvider(defaultStatisticsProvider);
+    }
+
+    /**
+     * 设置默认守护策略, 对此后实例化的Jpa条件查询生效
+     *
+     * @param policy 守护策略, null时不校验
+     */
+    public static void setDefaultPolicy(ConditionPolicy policy) {
+        defaultPolicy = policy;
+    }
+
+    public static ConditionPolicy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    /**
+     * 设置默认列统计信息, 对此后实例化的Jpa条件查询生效
+     *
+     * @param provider 列统计信息提供者, null时不排序
+     */
+    public static void setDefaultStatisticsProvider(ColumnStatisticsProvider provider) {
+        defaultStatisticsProvider = provider;
+    }
+
+    public static ColumnStatisticsProvider getDefaultStatisticsProvider() {
+        return defaultStatisticsProvider;
+    }
+
+    /**
+     * 设置索引提示, 如 ("org.hibernate.comment", "+INDEX(%s)")
+     *
+     * @param name   提示名, null时不附加索引提示
+     * @param format 提示值格式, 参数为索引名
+     */
+    public static void setIndexHint(String name, String format) {
+        indexHintName = name;
+        indexHintFormat = Objects.isNull(format) ? "%s" : format;
+    }
+
+    public static String getIndexHintName() {
+        return indexHintName;
+    }
+
+    public static String getIndexHintFormat() {
+        return indexHintFormat;
     }
 
     /**
@@ -131,4 +203,66 @@ public class JpaConditionUtils {
         }
         return false;
     }
+
+    /**
+     * 实体类映射中的索引属性, 包括 @Id、@Column(unique = true) 以及 @Table(indexes) 中各索引的首列
+     * 映射注解可在字段(字段访问)或读取方法(属性访问)上
+     * 列名比较忽略大小写与下划线, 兼容默认命名策略
+     *
+     * @param javaType 实体类
+     * @return Map<属性名, 索引名>, 索引名未知时为空串
+     */
+    public static Map<String, String> indexes(Class<?> javaType) {
+        return INDEXES.computeIfAbsent(javaType, type -> {
+            Map<String, String> columns = new HashMap<>();
+            for (Class<?> c = type; Objects.nonNull(c) && c != Object.class; c = c.getSuperclass()) {
+                Table table = c.getAnnotation(Table.class);
+                if (Objects.isNull(table)) continue;
+                // 联合索引仅首列可独立使用
+                for (Index index : table.indexes())
+                    columns.putIfAbsent(normalizeColumn(index.columnList().split(",")[0].trim().split("\\s+")[0]),
+                            index.name());
+            }
+            Map<String, String> indexes = new HashMap<>();
+            for (Class<?> c = type; Objects.nonNull(c) && c != Object.class; c = c.getSuperclass()) {
+                // 字段访问
+                for (Field field : c.getDeclaredFields())
+                    index(indexes, columns, field.getName(), field);
+                // 属性访问, 映射注解在读取方法上
+                for (Method method : c.getDeclaredMethods()) {
+                    String property = getterProperty(method);
+                    if (Objects.nonNull(property))
+                        index(indexes, columns, property, method);
+                }
+            }
+            return Collections.unmodifiableMap(indexes);
+        });
+    }
+
+    // 记录属性所在的索引
+    private static void index(Map<String, String> indexes, Map<String, String> columns,
+                              String property, AnnotatedElement element) {
+        Column column = element.getAnnotation(Column.class);
+        String columnName = Objects.nonNull(column) && !column.name().isEmpty() ? column.name() : property;
+        String index = columns.get(normalizeColumn(columnName));
+        if (Objects.nonNull(index))
+            indexes.putIfAbsent(property, index);
+        else if (element.isAnnotationPresent(Id.class) || (Objects.nonNull(column) && column.unique()))
+            indexes.putIfAbsent(property, "");
+    }
+
+    // 读取方法对应的属性名, 不是读取方法时为null
+    private static String getterProperty(Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() > 0
+                || method.getReturnType() == void.class) return null;
+        String name = method.getName();
+        if (name.length() > 3 && name.startsWith("get")) return Introspector.decapitalize(name.substring(3));
+        if (name.length() > 2 && name.startsWith("is")) return Introspector.decapitalize(name.substring(2));
+        return null;
+    }
+
+    // 规范化列名
+    private static String normalizeColumn(String column) {
+        return column.replace("_", "").replace("`", "").replace("\"", "").toLowerCase();
+    }
 }
@@ -0,0 +1,129 @@
+package org.springframework.data.jpa.condition;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * 进程内 N-Gram 倒排索引
+ * 以检索文本的全部N-Gram求交得到候选, 再以属性值校验子串, 结果与 LIKE '%text%' 一致
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see [相关类/方法]
+ * @since [产品/模块版本]
+ */
+public class NGramTextSearchIndex implements TextSearchIndex {
+    private final int n;
+
+    private final int maxResults;
+
+    private final boolean caseSensitive;
+
+    private final Map<String, Set<Object>> postings = new HashMap<>();
+
+    private final Map<Object, String> values = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /* Constractor */
+
+    /**
+     * @param n             Gram长度, 短于n的检索文本回退为 SQL LIKE
+     * @param maxResults    结果上限, 超出时回退为 SQL LIKE
+     * @param caseSensitive 是否区分大小写, 仅当数据库排序规则区分大小写时可为true;
+     *                      不区分大小写的索引得到的候选包含两种排序规则下的匹配, 由 LIKE 最终过滤
+     */
+    public NGramTextSearchIndex(int n, int maxResults, boolean caseSensitive) {
+        if (n < 1)
+            throw new IllegalArgumentException("n must be positive");
+        this.n = n;
+        this.maxResults = maxResults;
+        this.caseSensitive = caseSensitive;
+    }
+
+    public NGramTextSearchIndex() {
+        this(3, 1000, false);
+    }
+
+    @Override
+    public Set<Object> search(String text) {
+        String normalized = normalize(text);
+        if (normalized.length() < n) return null;
+        lock.readLock().lock();
+        try {
+            Set<Object> candidates = null;
+            for (String gram : grams(normalized)) {
+                Set<Object> ids = postings.getOrDefault(gram, Collections.emptySet());
+                if (Objects.isNull(candidates) || ids.size() < candidates.size()) {
+                    Set<Object> smaller = new HashSet<>(ids);
+                    if (Objects.nonNull(candidates)) smaller.retainAll(candidates);
+                    candidates = smaller;
+                } else {
+                    candidates.retainAll(ids);
+                }
+                if (candidates.isEmpty()) return candidates;
+            }
+            Set<Object> matched = candidates.stream()
+                    .filter(id -> values.get(id).contains(normalized))
+                    .collect(Collectors.toSet());
+            return matched.size() > maxResults ? null : matched;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Object id, String value) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            if (Objects.isNull(value)) return;
+            String normalized = normalize(value);
+            values.put(id, normalized);
+            for (String gram : grams(normalized))
+                postings.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Object id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeInternal(Object id) {
+        String previous = values.remove(id);
+        if (Objects.isNull(previous)) return;
+        for (String gram : grams(previous)) {
+            Set<Object> ids = postings.get(gram);
+            if (Objects.isNull(ids)) continue;
+            ids.remove(id);
+            if (ids.isEmpty()) postings.remove(gram);
+        }
+    }
+
+    private Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + n <= value.length(); i++)
+            grams.add(value.substring(i, i + n));
+        return grams;
+    }
+
+    private String normalize(String value) {
+        return caseSensitive ? value : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,86 @@
+package org.springframework.data.jpa.condition;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * 分区粒度
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see PartitionKey
+ * @since [产品/模块版本]
+ */
+public enum PartitionGranularity {
+    DAY, MONTH, YEAR;
+
+    /**
+     * 截断日期至分区粒度
+     *
+     * @param date 日期
+     * @return 分区起始日期
+     */
+    public LocalDate truncate(LocalDate date) {
+        switch (this) {
+            case YEAR:
+                return date.withDayOfYear(1);
+            case MONTH:
+                return date.withDayOfMonth(1);
+            default:
+                return date;
+        }
+    }
+
+    /**
+     * 日期所在分区的下一个分区的起始日期
+     *
+     * @param date 日期
+     * @return 下一个分区起始日期
+     */
+    public LocalDate next(LocalDate date) {
+        LocalDate start = truncate(date);
+        switch (this) {
+            case YEAR:
+                return start.plusYears(1);
+            case MONTH:
+                return start.plusMonths(1);
+            default:
+                return start.plusDays(1);
+        }
+    }
+
+    /**
+     * 两个粒度中较粗的一个
+     *
+     * @param other 粒度
+     * @return PartitionGranularity
+     */
+    public PartitionGranularity coarser(PartitionGranularity other) {
+        return compareTo(other) >= 0 ? this : other;
+    }
+
+    /**
+     * 过滤值转换为分区键时区中的日期
+     * 本地日期时间类型视为已在该时区中; java.sql.Date 不支持 toInstant, 需先于 java.util.Date 判断
+     *
+     * @param value 过滤值
+     * @param zone  分区键取值所在时区
+     * @return 日期, 类型不支持时为null
+     */
+    public static LocalDate toLocalDate(Object value, ZoneId zone) {
+        if (value instanceof LocalDate)
+            return (LocalDate) value;
+        if (value instanceof LocalDateTime)
+            return ((LocalDateTime) value).toLocalDate();
+        if (value instanceof java.sql.Date)
+            return ((java.sql.Date) value).toLocalDate();
+        if (value instanceof Date)
+            return ((Date) value).toInstant().atZone(zone).toLocalDate();
+        if (value instanceof Instant)
+            return ((Instant) value).atZone(zone).toLocalDate();
+        return null;
+    }
+}
@@ -0,0 +1,171 @@
+package org.springframework.data.jpa.condition;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分区键声明
+ * 声明过滤属性与分区键的对应关系后, JpaCondition 的 between 与比较条件会附加冗余的分区键范围, 以触发分区裁剪
+ * 分区键取值须由过滤值在声明的时区中截断得到, 截断精度不粗于编码精度, 如 createdDay = yyyyMMdd(createdAt)
+ * 时区须与写入分区键的数据库或应用一致, 否则日界附近的行会被冗余范围排除
+ * 附加范围为 [下界所在分区起点, 上界所在分区的下一分区起点), 分区键取值精度细于分区粒度时同样成立
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see JpaCondition#between(String, Comparable, Comparable)
+ * @since [产品/模块版本]
+ */
+public class PartitionKey {
+    private static final Map<Class<?>, Map<String, PartitionKey>> DECLARATIONS = new ConcurrentHashMap<>();
+
+    private final String name;
+
+    private final PartitionGranularity granularity;
+
+    private final PartitionKeyEncoding encoding;
+
+    private final ZoneId zone;
+
+    /* Constractor */
+    public PartitionKey(String name, PartitionGranularity granularity) {
+        this(name, granularity, PartitionKeyEncoding.NATIVE);
+    }
+
+    public PartitionKey(String name, PartitionGranularity granularity, PartitionKeyEncoding encoding) {
+        this(name, granularity, encoding, ZoneId.systemDefault());
+    }
+
+    public PartitionKey(String name, PartitionGranularity granularity, PartitionKeyEncoding encoding, ZoneId zone) {
+        this.name = Objects.requireNonNull(name);
+        this.granularity = Objects.requireNonNull(granularity);
+        this.encoding = Objects.requireNonNull(encoding);
+        this.zone = Objects.requireNonNull(zone);
+    }
+
+    /* Declaration */
+
+    /**
+     * 声明过滤属性对应的日期时间类型分区键
+     *
+     * @param javaType    实体类
+     * @param filterName  过滤属性名, 如 createdAt
+     * @param keyName     分区键属性名, 如 createdDate
+     * @param granularity 分区粒度
+     */
+    public static void declare(Class<?> javaType, String filterName,
+                               String keyName, PartitionGranularity granularity) {
+        declare(javaType, filterName, keyName, granularity, PartitionKeyEncoding.NATIVE);
+    }
+
+    /**
+     * 声明过滤属性对应的分区键, 分区键取值在JVM默认时区中计算
+     *
+     * @param javaType    实体类
+     * @param filterName  过滤属性名, 如 createdAt
+     * @param keyName     分区键属性名, 如 createdDay
+     * @param granularity 分区粒度
+     * @param encoding    分区键列的取值编码, 如 YYYYMMDD
+     */
+    public static void declare(Class<?> javaType, String filterName, String keyName,
+                               PartitionGranularity granularity, PartitionKeyEncoding encoding) {
+        declare(javaType, filterName, keyName, granularity, encoding, ZoneId.systemDefault());
+    }
+
+    /**
+     * 声明过滤属性对应的分区键
+     *
+     * @param javaType    实体类
+     * @param filterName  过滤属性名, 如 createdAt
+     * @param keyName     分区键属性名, 如 createdDay
+     * @param granularity 分区粒度
+     * @param encoding    分区键列的取值编码, 如 YYYYMMDD
+     * @param zone        分区键取值所在时区, 即数据库或写入方截断过滤值时使用的时区
+     */
+    public static void declare(Class<?> javaType, String filterName, String keyName,
+                               PartitionGranularity granularity, PartitionKeyEncoding encoding, ZoneId zone) {
+        DECLARATIONS.computeIfAbsent(javaType, type -> new ConcurrentHashMap<>())
+                .put(filterName, new PartitionKey(keyName, granularity, encoding, zone));
+    }
+
+    /**
+     * 取消过滤属性的分区键声明
+     *
+     * @param javaType   实体类
+     * @param filterName 过滤属性名
+     */
+    public static void undeclare(Class<?> javaType, String filterName) {
+        Map<String, PartitionKey> keys = DECLARATIONS.get(javaType);
+        if (Objects.isNull(keys)) return;
+        keys.remove(filterName);
+        if (keys.isEmpty()) DECLARATIONS.remove(javaType, keys);
+    }
+
+    /**
+     * 获得过滤属性对应的分区键, 包括父类中的声明
+     *
+     * @param javaType   实体类
+     * @param filterName 过滤属性名
+     * @return PartitionKey, 未声明时为null
+     */
+    public static PartitionKey of(Class<?> javaType, String filterName) {
+        if (DECLARATIONS.isEmpty()) return null;
+        for (Class<?> c = javaType; Objects.nonNull(c) && c != Object.class; c = c.getSuperclass()) {
+            PartitionKey key = DECLARATIONS.getOrDefault(c, Collections.emptyMap()).get(filterName);
+            if (Objects.nonNull(key)) return key;
+        }
+        return null;
+    }
+
+    /* Bound */
+
+    /**
+     * 过滤下界对应的分区键下界(闭区间): 下界所在分区的起点
+     *
+     * @param lower   过滤下界
+     * @param keyType 分区键列的Java类型
+     * @return 分区键值, 无法转换时为null
+     */
+    public Object lowerBound(Object lower, Class<?> keyType) {
+        LocalDate date = PartitionGranularity.toLocalDate(lower, zone);
+        return Objects.isNull(date) ? null : encoding.encode(unit().truncate(date), keyType, zone);
+    }
+
+    /**
+     * 过滤上界对应的分区键上界(开区间): 上界所在分区的下一分区起点
+     *
+     * @param upper   过滤上界
+     * @param keyType 分区键列的Java类型
+     * @return 分区键值, 无法转换时为null
+     */
+    public Object upperBound(Object upper, Class<?> keyType) {
+        LocalDate date = PartitionGranularity.toLocalDate(upper, zone);
+        return Objects.isNull(date) ? null : encoding.encode(unit().next(date), keyType, zone);
+    }
+
+    // 编码无法区分比其精度更细的分区, 按两者中较粗者计算
+    private PartitionGranularity unit() {
+        return granularity.coarser(encoding.resolution());
+    }
+
+    /* Getter */
+
+    public String getName() {
+        return name;
+    }
+
+    public PartitionGranularity getGranularity() {
+        return granularity;
+    }
+
+    public PartitionKeyEncoding getEncoding() {
+        return encoding;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+}
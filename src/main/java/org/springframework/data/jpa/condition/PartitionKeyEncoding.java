@@ -0,0 +1,89 @@
+package org.springframework.data.jpa.condition;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * 分区键列的取值编码, 与分区粒度相互独立
+ * 如按月分区的表, 分区键列可以存放日期, 也可以存放 yyyyMMdd 或 yyyyMM 整数
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see PartitionKey
+ * @since [产品/模块版本]
+ */
+public enum PartitionKeyEncoding {
+    /**
+     * 日期时间类型的列, 按列的Java类型转换
+     */
+    NATIVE(PartitionGranularity.DAY),
+    /**
+     * yyyyMMdd 整数
+     */
+    YYYYMMDD(PartitionGranularity.DAY),
+    /**
+     * yyyyMM 整数
+     */
+    YYYYMM(PartitionGranularity.MONTH),
+    /**
+     * yyyy 整数
+     */
+    YYYY(PartitionGranularity.YEAR);
+
+    private final PartitionGranularity resolution;
+
+    PartitionKeyEncoding(PartitionGranularity resolution) {
+        this.resolution = resolution;
+    }
+
+    /**
+     * 编码可区分的最小粒度
+     *
+     * @return PartitionGranularity
+     */
+    public PartitionGranularity resolution() {
+        return resolution;
+    }
+
+    /**
+     * 将日期编码为分区键值
+     *
+     * @param date    日期
+     * @param keyType 分区键列的Java类型
+     * @param zone    分区键取值所在时区, 用于时间点类型的列
+     * @return 分区键值, 类型与编码不匹配时为null
+     */
+    public Object encode(LocalDate date, Class<?> keyType, ZoneId zone) {
+        if (this == NATIVE) {
+            if (keyType == LocalDate.class)
+                return date;
+            if (keyType == LocalDateTime.class)
+                return date.atStartOfDay();
+            if (keyType == java.sql.Date.class)
+                return java.sql.Date.valueOf(date);
+            if (keyType == java.sql.Timestamp.class)
+                return java.sql.Timestamp.from(date.atStartOfDay(zone).toInstant());
+            if (keyType == Date.class)
+                return Date.from(date.atStartOfDay(zone).toInstant());
+            return null;
+        }
+        int encoded;
+        switch (this) {
+            case YYYY:
+                encoded = date.getYear();
+                break;
+            case YYYYMM:
+                encoded = date.getYear() * 100 + date.getMonthValue();
+                break;
+            default:
+                encoded = (date.getYear() * 100 + date.getMonthValue()) * 100 + date.getDayOfMonth();
+        }
+        if (keyType == Integer.class || keyType == int.class)
+            return encoded;
+        if (keyType == Long.class || keyType == long.class)
+            return (long) encoded;
+        return null;
+    }
+}
@@ -0,0 +1,48 @@
+package org.springframework.data.jpa.condition;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 范围分片策略, 第i个分片保存小于 upperBounds[i] 的取值, 最后一个分片保存其余取值
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see [相关类/方法]
+ * @since [产品/模块版本]
+ */
+public class RangeShardingStrategy implements ShardingStrategy {
+    private final Comparable<?>[] upperBounds;
+
+    /* Constractor */
+    public RangeShardingStrategy(Comparable<?>... upperBounds) {
+        this.upperBounds = Arrays.copyOf(upperBounds, upperBounds.length);
+    }
+
+    @Override
+    public int shardCount() {
+        return upperBounds.length + 1;
+    }
+
+    @Override
+    public int shardOf(Object key) {
+        for (int i = 0; i < upperBounds.length; i++)
+            if (compare(key, upperBounds[i]) < 0) return i;
+        return upperBounds.length;
+    }
+
+    @Override
+    public Set<Integer> shardsOf(Comparable<?> lower, Comparable<?> upper) {
+        int from = Objects.isNull(lower) ? 0 : shardOf(lower);
+        int to = Objects.isNull(upper) ? upperBounds.length : shardOf(upper);
+        return IntStream.rangeClosed(from, to).boxed().collect(Collectors.toSet());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object key, Comparable bound) {
+        return ((Comparable) key).compareTo(bound);
+    }
+}
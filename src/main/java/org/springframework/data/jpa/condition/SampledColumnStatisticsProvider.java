@@ -0,0 +1,134 @@
+package org.springframework.data.jpa.condition;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * 采样式列统计信息, 每个实体类首次使用时在后台读取有限行数统计不同值数量
+ * 采样完成前返回null, 查询不等待采样; 需要读取数据库目录统计信息时可覆盖 sample(Class)
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see [相关类/方法]
+ * @since [产品/模块版本]
+ */
+public class SampledColumnStatisticsProvider implements ColumnStatisticsProvider {
+    private static final Log LOG = LogFactory.getLog(SampledColumnStatisticsProvider.class);
+
+    private static final Executor DEFAULT_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jpa-condition-statistics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Executor executor;
+
+    private int sampleSize = 10000;
+
+    private final Map<Class<?>, CompletableFuture<ColumnStatistics>> statistics = new ConcurrentHashMap<>();
+
+    /* Constractor */
+    public SampledColumnStatisticsProvider(EntityManagerFactory entityManagerFactory) {
+        this(entityManagerFactory, DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * @param entityManagerFactory EntityManagerFactory
+     * @param executor             执行采样的线程池
+     */
+    public SampledColumnStatisticsProvider(EntityManagerFactory entityManagerFactory, Executor executor) {
+        this.entityManagerFactory = Objects.requireNonNull(entityManagerFactory);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * 获得实体类的列统计信息, 首次调用时提交后台采样
+     *
+     * @param javaType 实体类
+     * @return ColumnStatistics, 采样完成前为null
+     */
+    @Override
+    public ColumnStatistics statistics(Class<?> javaType) {
+        return statistics.computeIfAbsent(javaType, type -> CompletableFuture
+                .supplyAsync(() -> sample(type), executor)
+                .exceptionally(e -> {
+                    if (LOG.isWarnEnabled())
+                        LOG.warn("Failed to sample column statistics of " + type.getName(), e);
+                    return indexStatistics(type);
+                }))
+                .getNow(null);
+    }
+
+    /**
+     * 读取至多 sampleSize 行, 统计实体类基本属性的不同值数量
+     * 样本中的不同值数量仅用于比较各列的选择性, 不代表全表的不同值数量
+     *
+     * @param javaType 实体类
+     * @return ColumnStatistics
+     */
+    protected ColumnStatistics sample(Class<?> javaType) {
+        ColumnStatistics statistics = indexStatistics(javaType);
+        EntityType<?> entity = entityManagerFactory.getMetamodel().entity(javaType);
+        List<String> names = entity.getSingularAttributes().stream()
+                .filter(attribute -> attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC)
+                .map(Attribute::getName)
+                .collect(Collectors.toList());
+        if (names.isEmpty()) return statistics;
+        String jpql = names.stream()
+                .map(name -> "e." + name)
+                .collect(Collectors.joining(", ", "select ", " from " + entity.getName() + " e"));
+        List<Set<Object>> values = new ArrayList<>();
+        names.forEach(name -> values.add(new HashSet<>()));
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            for (Object row : em.createQuery(jpql).setMaxResults(sampleSize).getResultList()) {
+                // 单列时结果不是数组
+                Object[] columns = row instanceof Object[] ? (Object[]) row : new Object[]{row};
+                for (int i = 0; i < names.size(); i++)
+                    if (Objects.nonNull(columns[i])) values.get(i).add(columns[i]);
+            }
+        } finally {
+            em.close();
+        }
+        for (int i = 0; i < names.size(); i++)
+            statistics.distinct(names.get(i), values.get(i).size());
+        return statistics;
+    }
+
+    // 仅含实体类映射中索引的统计信息
+    private static ColumnStatistics indexStatistics(Class<?> javaType) {
+        ColumnStatistics statistics = new ColumnStatistics();
+        JpaConditionUtils.indexes(javaType).forEach(statistics::index);
+        return statistics;
+    }
+
+    /* Getter And Setter */
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    public SampledColumnStatisticsProvider setSampleSize(int sampleSize) {
+        if (sampleSize < 1) throw new IllegalArgumentException("sampleSize must be positive");
+        this.sampleSize = sampleSize;
+        return this;
+    }
+}
@@ -0,0 +1,61 @@
+package org.springframework.data.jpa.condition;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+
+/**
+ * 分片键约束, 由 JpaCondition 在生成分片键条件时记录
+ * 取值约束对应 equal / in, 范围约束对应 between 与比较条件, 范围按闭区间处理
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see ShardingStrategy
+ * @since [产品/模块版本]
+ */
+public class ShardKeyConstraint {
+    private final Collection<?> values;
+
+    private final Comparable<?> lower;
+
+    private final Comparable<?> upper;
+
+    private ShardKeyConstraint(Collection<?> values, Comparable<?> lower, Comparable<?> upper) {
+        this.values = values;
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /* Factory */
+
+    public static ShardKeyConstraint values(Collection<?> values) {
+        return new ShardKeyConstraint(Collections.unmodifiableCollection(values), null, null);
+    }
+
+    public static ShardKeyConstraint range(Comparable<?> lower, Comparable<?> upper) {
+        return new ShardKeyConstraint(null, lower, upper);
+    }
+
+    /* Getter */
+
+    public boolean isRange() {
+        return Objects.isNull(values);
+    }
+
+    public Collection<?> getValues() {
+        return values;
+    }
+
+    public Comparable<?> getLower() {
+        return lower;
+    }
+
+    public Comparable<?> getUpper() {
+        return upper;
+    }
+
+    @Override
+    public String toString() {
+        return isRange() ? "[" + lower + ", " + upper + "]" : String.valueOf(values);
+    }
+}
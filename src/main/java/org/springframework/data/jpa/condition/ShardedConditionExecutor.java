@@ -0,0 +1,262 @@
+package org.springframework.data.jpa.condition;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 分片条件查询执行器
+ * 根据条件中的分片键约束计算可能包含匹配数据的分片, 仅在这些分片上并行查询并合并结果
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see ShardingStrategy
+ * @since [产品/模块版本]
+ */
+public class ShardedConditionExecutor {
+    private static final Log LOG = LogFactory.getLog(ShardedConditionExecutor.class);
+
+    private final String shardKey;
+
+    private final ShardingStrategy strategy;
+
+    private final List<AsyncConditionExecutor> shards;
+
+    // 排序时null是否视为最小值, H2、MySQL、SQL Server 为true, PostgreSQL、Oracle 为false
+    private boolean nullsLow = true;
+
+    /* Constractor */
+
+    /**
+     * @param shardKey 分片键属性名
+     * @param strategy 分片策略
+     * @param shards   各分片的执行器, 顺序与分片序号一致
+     */
+    public ShardedConditionExecutor(String shardKey, ShardingStrategy strategy,
+                                    List<AsyncConditionExecutor> shards) {
+        if (shards.size() != strategy.shardCount())
+            throw new IllegalArgumentException("Expected " + strategy.shardCount() + " shards, got " + shards.size());
+        this.shardKey = Objects.requireNonNull(shardKey);
+        this.strategy = strategy;
+        this.shards = new ArrayList<>(shards);
+    }
+
+    /* Route */
+
+    /**
+     * 计算可能包含匹配数据的分片
+     * 在首个分片的 CriteriaBuilder 上生成一次条件, 收集WHERE语句中必然成立的分片键约束
+     * 路由时 ConditionQueryContext.isRouting() 为true, JpaCondition 在此对整个逻辑查询校验并计数一次守护策略,
+     * 跳过统计信息, 自定义条件中有副作用的逻辑同样应据此跳过
+     *
+     * @param domainClass   实体类
+     * @param specification 查询规格
+     * @param <T>           实体类类型
+     * @return 分片序号集合, 无约束时为全部分片
+     * @throws ConditionPolicyException 违反守护策略
+     */
+    public <T> Set<Integer> route(Class<T> domainClass, Specification<T> specification) {
+        return routed(domainClass, routeContext(domainClass, specification));
+    }
+
+    // 生成一次仅用于路由的条件
+    private <T> ConditionQueryContext routeContext(Class<T> domainClass, Specification<T> specification) {
+        CriteriaBuilder cb = shards.get(0).getEntityManagerFactory().getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(domainClass);
+        Root<T> root = query.from(domainClass);
+        ConditionQueryContext context = ConditionQueryContext.begin().setShardKey(shardKey).setRouting(true);
+        try {
+            specification.toPredicate(root, query, cb);
+        } finally {
+            ConditionQueryContext.end();
+        }
+        return context;
+    }
+
+    // 路由上下文中的分片键约束涵盖的分片
+    private Set<Integer> routed(Class<?> domainClass, ConditionQueryContext context) {
+        Set<Integer> routed = IntStream.range(0, strategy.shardCount()).boxed()
+                .collect(Collectors.toCollection(TreeSet::new));
+        for (ShardKeyConstraint constraint : context.getShardKeyConstraints())
+            routed.retainAll(shardsOf(constraint));
+        if (LOG.isDebugEnabled())
+            LOG.debug("Route " + domainClass.getName() + " by " + context.getShardKeyConstraints() + " to " + routed);
+        return routed;
+    }
+
+    // 单个约束涵盖的分片
+    private Set<Integer> shardsOf(ShardKeyConstraint constraint) {
+        if (constraint.isRange())
+            return strategy.shardsOf(constraint.getLower(), constraint.getUpper());
+        return constraint.getValues().stream()
+                .filter(Objects::nonNull)
+                .map(strategy::shardOf)
+                .collect(Collectors.toSet());
+    }
+
+    /* Query */
+
+    /**
+     * 在路由到的分片上并行查询, 合并后排序并截取
+     * 各分片查询同样应用排序与行数上限, 合并排序的null顺序由 nullsLow 决定, 须与数据库一致
+     * 守护策略降级或条件声明的行数上限同样作用于合并结果
+     *
+     * @param domainClass   实体类
+     * @param specification 查询规格
+     * @param sort          排序, null时不排序
+     * @param limit         行数上限, 小于等于0时不限制
+     * @param timeoutMillis 查询超时(毫秒), 小于等于0时不限制
+     * @param <T>           实体类类型
+     * @return CompletableFuture<List<T>>
+     */
+    public <T> CompletableFuture<List<T>> findAll(Class<T> domainClass, Specification<T> specification,
+                                                  Sort sort, int limit, long timeoutMillis) {
+        ConditionQueryContext routing;
+        try {
+            routing = routeContext(domainClass, specification);
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+        Integer cap = routing.getMaxResults();
+        int mergedLimit = Objects.isNull(cap) ? limit : limit > 0 ? Math.min(limit, cap) : cap;
+        Specification<T> shardSpecification = (root, query, cb) -> {
+            if (Objects.nonNull(sort)) query.orderBy(orders(sort, root, cb));
+            ConditionQueryContext context = ConditionQueryContext.current();
+            if (Objects.nonNull(context)) {
+                context.setRouted(true);
+                if (limit > 0) context.setMaxResults(limit);
+            }
+            return specification.toPredicate(root, query, cb);
+        };
+        List<CompletableFuture<List<T>>> futures = routed(domainClass, routing).stream()
+                .map(shard -> shards.get(shard).findAll(domainClass, shardSpecification, timeoutMillis))
+                .collect(Collectors.toList());
+        return allOf(futures).thenApply(results -> {
+            Stream<T> merged = results.stream().flatMap(Collection::stream);
+            if (Objects.nonNull(sort)) merged = merged.sorted(comparator(sort, nullsLow));
+            if (mergedLimit > 0) merged = merged.limit(mergedLimit);
+            return merged.collect(Collectors.toList());
+        });
+    }
+
+    /**
+     * 在路由到的分片上并行统计, 合并为总数
+     *
+     * @param domainClass   实体类
+     * @param specification 查询规格
+     * @param timeoutMillis 查询超时(毫秒), 小于等于0时不限制
+     * @param <T>           实体类类型
+     * @return CompletableFuture<Long>
+     */
+    public <T> CompletableFuture<Long> count(Class<T> domainClass, Specification<T> specification,
+                                             long timeoutMillis) {
+        Set<Integer> routed;
+        try {
+            routed = route(domainClass, specification);
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+        Specification<T> shardSpecification = (root, query, cb) -> {
+            ConditionQueryContext context = ConditionQueryContext.current();
+            if (Objects.nonNull(context)) context.setRouted(true);
+            return specification.toPredicate(root, query, cb);
+        };
+        List<CompletableFuture<Long>> futures = routed.stream()
+                .map(shard -> shards.get(shard).count(domainClass, shardSpecification, timeoutMillis))
+                .collect(Collectors.toList());
+        return allOf(futures).thenApply(results -> results.stream().mapToLong(Long::longValue).sum());
+    }
+
+    /* Support */
+
+    private static <R> CompletableFuture<R> failed(Throwable e) {
+        CompletableFuture<R> failed = new CompletableFuture<>();
+        failed.completeExceptionally(e);
+        return failed;
+    }
+
+    // 等待全部分片完成, 任一分片失败时取消其余分片
+    private static <R> CompletableFuture<List<R>> allOf(List<CompletableFuture<R>> futures) {
+        CompletableFuture<List<R>> all = CompletableFuture
+                .allOf(futures.toArray(new CompletableFuture<?>[futures.size()]))
+                .thenApply(ignored -> futures.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+        all.whenComplete((results, e) -> {
+            if (Objects.nonNull(e)) futures.forEach(future -> future.cancel(true));
+        });
+        futures.forEach(future -> future.whenComplete((result, e) -> {
+            if (Objects.nonNull(e)) all.completeExceptionally(e);
+        }));
+        return all;
+    }
+
+    private static List<Order> orders(Sort sort, Root<?> root, CriteriaBuilder cb) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort)
+            orders.add(order.isAscending() ? cb.asc(root.get(order.getProperty()))
+                    : cb.desc(root.get(order.getProperty())));
+        return orders;
+    }
+
+    // 与SQL排序一致: null视为最小值时升序在前、降序在后
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Comparator<T> comparator(Sort sort, boolean nullsLow) {
+        Comparator<T> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Function<T, Comparable> property = model -> (Comparable) JpaConditionUtils.getPropertyValue(model,
+                    BeanUtils.getPropertyDescriptor(model.getClass(), order.getProperty()));
+            Comparator<Comparable> natural = order.isAscending()
+                    ? Comparator.<Comparable>naturalOrder() : Comparator.<Comparable>reverseOrder();
+            comparator = comparator.thenComparing(property, nullsLow == order.isAscending()
+                    ? Comparator.nullsFirst(natural) : Comparator.nullsLast(natural));
+        }
+        return comparator;
+    }
+
+    /* Getter And Setter */
+
+    public String getShardKey() {
+        return shardKey;
+    }
+
+    public ShardingStrategy getStrategy() {
+        return strategy;
+    }
+
+    public List<AsyncConditionExecutor> getShards() {
+        return shards;
+    }
+
+    public boolean isNullsLow() {
+        return nullsLow;
+    }
+
+    /**
+     * 设置数据库排序时null是否视为最小值
+     *
+     * @param nullsLow H2、MySQL、SQL Server 为true(默认), PostgreSQL、Oracle 为false
+     * @return ShardedConditionExecutor
+     */
+    public ShardedConditionExecutor setNullsLow(boolean nullsLow) {
+        this.nullsLow = nullsLow;
+        return this;
+    }
+}
@@ -0,0 +1,42 @@
+package org.springframework.data.jpa.condition;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 分片策略, 计算可能包含匹配数据的分片
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see HashShardingStrategy
+ * @see RangeShardingStrategy
+ * @since [产品/模块版本]
+ */
+public interface ShardingStrategy {
+    /**
+     * 分片数量
+     *
+     * @return 分片数量
+     */
+    int shardCount();
+
+    /**
+     * 分片键取值所在的分片
+     *
+     * @param key 分片键取值
+     * @return 分片序号
+     */
+    int shardOf(Object key);
+
+    /**
+     * 分片键范围涵盖的分片, 默认为全部分片
+     *
+     * @param lower 下界, 无下界时为null
+     * @param upper 上界, 无上界时为null
+     * @return 分片序号集合
+     */
+    default Set<Integer> shardsOf(Comparable<?> lower, Comparable<?> upper) {
+        return IntStream.range(0, shardCount()).boxed().collect(Collectors.toSet());
+    }
+}
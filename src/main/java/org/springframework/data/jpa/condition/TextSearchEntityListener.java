@@ -0,0 +1,68 @@
+package org.springframework.data.jpa.condition;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 文本检索索引维护, 在实体类上使用 @EntityListeners(TextSearchEntityListener.class)
+ * 存在 Spring 事务同步时在事务提交后更新索引, 回滚的写入不进入索引; 否则在 flush 时立即更新
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see TextSearchProperty
+ * @since [产品/模块版本]
+ */
+public class TextSearchEntityListener {
+    @PostPersist
+    @PostUpdate
+    public void index(Object entity) {
+        List<Runnable> updates = new ArrayList<>();
+        for (TextSearchProperty property : TextSearchProperty.all(entity.getClass())) {
+            // 取值在回调时读取, 提交前实体可能再次修改
+            Object id = propertyValue(entity, property.getIdName());
+            Object value = propertyValue(entity, property.getName());
+            if (Objects.isNull(value))
+                updates.add(() -> property.getIndex().remove(id));
+            else
+                updates.add(() -> property.getIndex().index(id, String.valueOf(value)));
+        }
+        afterCommit(updates);
+    }
+
+    @PostRemove
+    public void remove(Object entity) {
+        List<Runnable> updates = new ArrayList<>();
+        for (TextSearchProperty property : TextSearchProperty.all(entity.getClass())) {
+            Object id = propertyValue(entity, property.getIdName());
+            updates.add(() -> property.getIndex().remove(id));
+        }
+        afterCommit(updates);
+    }
+
+    // 事务提交后执行, 无事务同步时立即执行
+    private static void afterCommit(List<Runnable> updates) {
+        if (updates.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            updates.forEach(Runnable::run);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                updates.forEach(Runnable::run);
+            }
+        });
+    }
+
+    private static Object propertyValue(Object entity, String name) {
+        return JpaConditionUtils.getPropertyValue(entity, BeanUtils.getPropertyDescriptor(entity.getClass(), name));
+    }
+}
@@ -0,0 +1,40 @@
+package org.springframework.data.jpa.condition;
+
+import java.util.Set;
+
+/**
+ * 文本检索索引 SPI, 为 Like 条件提供候选主键
+ * 索引由 TextSearchEntityListener 在本进程的事务提交后维护, 不感知其他节点、批量更新与原生SQL的写入;
+ * 候选缺少的行不会出现在结果中, 因此仅在 TextSearchProperty.isComplete() 时使用,
+ * 此类写入后需 TextSearchProperty.invalidate 并重新 load
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see TextSearchProperty
+ * @see NGramTextSearchIndex
+ * @since [产品/模块版本]
+ */
+public interface TextSearchIndex {
+    /**
+     * 检索包含文本的数据主键
+     *
+     * @param text 检索文本
+     * @return 主键集合, 索引无法回答时为null, 此时回退为 SQL LIKE
+     */
+    Set<Object> search(String text);
+
+    /**
+     * 新增或更新索引
+     *
+     * @param id    主键
+     * @param value 属性值
+     */
+    void index(Object id, String value);
+
+    /**
+     * 移除索引
+     *
+     * @param id 主键
+     */
+    void remove(Object id);
+}
@@ -0,0 +1,164 @@
+package org.springframework.data.jpa.condition;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文本检索属性声明
+ * 声明后, JpaCondition 对该属性的 Like 条件先由索引得到候选主键, 生成 id in (...) and LIKE 条件;
+ * 索引未完整、无法回答、未命中或检索值含有通配符时回退为 SQL LIKE
+ * 索引在 load 后完整, 之后由 TextSearchEntityListener 维护; 监听器无法感知的写入(批量更新、原生SQL、其他节点)
+ * 须调用 invalidate, 直至重新 load 前不再使用候选
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see TextSearchEntityListener
+ * @since [产品/模块版本]
+ */
+public class TextSearchProperty {
+    private static final Map<Class<?>, Map<String, TextSearchProperty>> DECLARATIONS = new ConcurrentHashMap<>();
+
+    private final String name;
+
+    private final String idName;
+
+    private final TextSearchIndex index;
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private volatile boolean complete;
+
+    /* Constractor */
+    public TextSearchProperty(String name, String idName, TextSearchIndex index) {
+        this.name = Objects.requireNonNull(name);
+        this.idName = Objects.requireNonNull(idName);
+        this.index = Objects.requireNonNull(index);
+    }
+
+    /* Declaration */
+
+    /**
+     * 声明文本检索属性
+     *
+     * @param javaType 实体类
+     * @param name     属性名
+     * @param idName   主键属性名
+     * @param index    文本检索索引
+     */
+    public static void declare(Class<?> javaType, String name, String idName, TextSearchIndex index) {
+        DECLARATIONS.computeIfAbsent(javaType, type -> new ConcurrentHashMap<>())
+                .put(name, new TextSearchProperty(name, idName, index));
+    }
+
+    /**
+     * 移除文本检索属性声明
+     *
+     * @param javaType 实体类
+     * @param name     属性名
+     */
+    public static void undeclare(Class<?> javaType, String name) {
+        Map<String, TextSearchProperty> properties = DECLARATIONS.get(javaType);
+        if (Objects.isNull(properties)) return;
+        properties.remove(name);
+        if (properties.isEmpty()) DECLARATIONS.remove(javaType, properties);
+    }
+
+    /**
+     * 获得文本检索属性, 包括父类中的声明
+     *
+     * @param javaType 实体类
+     * @param name     属性名
+     * @return TextSearchProperty, 未声明时为null
+     */
+    public static TextSearchProperty of(Class<?> javaType, String name) {
+        if (DECLARATIONS.isEmpty()) return null;
+        for (Class<?> c = javaType; Objects.nonNull(c) && c != Object.class; c = c.getSuperclass()) {
+            TextSearchProperty property = DECLARATIONS.getOrDefault(c, Collections.emptyMap()).get(name);
+            if (Objects.nonNull(property)) return property;
+        }
+        return null;
+    }
+
+    /**
+     * 获得实体类的全部文本检索属性, 包括父类中的声明
+     *
+     * @param javaType 实体类
+     * @return 文本检索属性集合
+     */
+    public static Iterable<TextSearchProperty> all(Class<?> javaType) {
+        Map<String, TextSearchProperty> properties = new HashMap<>();
+        for (Class<?> c = javaType; Objects.nonNull(c) && c != Object.class; c = c.getSuperclass())
+            DECLARATIONS.getOrDefault(c, Collections.emptyMap()).forEach(properties::putIfAbsent);
+        return properties.values();
+    }
+
+    /**
+     * 从数据库加载已有数据至索引, 加载期间未被 invalidate 的属性标记为完整
+     *
+     * @param em       EntityManager
+     * @param javaType 实体类
+     */
+    public static void load(EntityManager em, Class<?> javaType) {
+        String entityName = em.getMetamodel().entity(javaType).getName();
+        for (TextSearchProperty property : all(javaType)) {
+            long invalidated = property.invalidations.get();
+            List<Object[]> rows = em.createQuery("select e." + property.idName + ", e." + property.name
+                    + " from " + entityName + " e where e." + property.name + " is not null", Object[].class)
+                    .getResultList();
+            for (Object[] row : rows)
+                property.index.index(row[0], String.valueOf(row[1]));
+            property.complete(invalidated);
+        }
+    }
+
+    /**
+     * 标记实体类的全部文本检索属性为不完整, 用于监听器无法感知的写入之后
+     *
+     * @param javaType 实体类
+     */
+    public static void invalidate(Class<?> javaType) {
+        all(javaType).forEach(TextSearchProperty::invalidate);
+    }
+
+    /**
+     * 标记索引为不完整, 重新 load 前 JpaCondition 不使用候选主键
+     */
+    public synchronized void invalidate() {
+        invalidations.incrementAndGet();
+        complete = false;
+    }
+
+    // 加载期间发生 invalidate 时保持不完整
+    private synchronized void complete(long invalidated) {
+        if (invalidations.get() == invalidated) complete = true;
+    }
+
+    /**
+     * 索引是否包含全部数据
+     *
+     * @return 已 load 且之后未被 invalidate 时为true
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /* Getter */
+
+    public String getName() {
+        return name;
+    }
+
+    public String getIdName() {
+        return idName;
+    }
+
+    public TextSearchIndex getIndex() {
+        return index;
+    }
+}
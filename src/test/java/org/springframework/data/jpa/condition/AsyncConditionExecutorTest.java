@@ -0,0 +1,154 @@
+package org.springframework.data.jpa.condition;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 异步条件查询执行器测试
+ * 慢查询由H2函数 SLOW_ROW 逐行忙等实现, 不响应线程中断, 只有取消SQL才能提前结束
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see AsyncConditionExecutor
+ * @since [产品/模块版本]
+ */
+public class AsyncConditionExecutorTest {
+    private static final int CUSTOMERS = 2000;
+
+    // 每行耗时, 全表扫描约4秒
+    private static final long ROW_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private static final AtomicInteger SCANNED = new AtomicInteger();
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeClass
+    public static void setUp() {
+        entityManagerFactory = H2Persistence.create("condition-async");
+        new DataGenerator(1L).setCustomers(CUSTOMERS).setOrdersPerCustomer(0).generate(entityManagerFactory);
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createNativeQuery("CREATE ALIAS IF NOT EXISTS SLOW_ROW FOR \""
+                    + AsyncConditionExecutorTest.class.getName() + ".slowRow\"").executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (Objects.nonNull(entityManagerFactory)) entityManagerFactory.close();
+    }
+
+    @Before
+    public void reset() {
+        SCANNED.set(0);
+    }
+
+    /**
+     * H2函数, 每行忙等 ROW_NANOS 后返回1
+     *
+     * @param id 主键
+     * @return 1
+     */
+    public static int slowRow(long id) {
+        SCANNED.incrementAndGet();
+        long until = System.nanoTime() + ROW_NANOS;
+        while (System.nanoTime() < until) {
+            // 忙等, 不响应中断
+        }
+        return 1;
+    }
+
+    @Test
+    public void timeoutFailsAndCancelsStatement() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        RecordingExecutor executor = new RecordingExecutor(pool);
+        CompletableFuture<List<Customer>> future = executor.findAll(Customer.class, slow(), 500);
+        try {
+            future.get();
+            fail("slow query should time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertReleased(pool, executor);
+    }
+
+    @Test
+    public void callerCancelCancelsStatement() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        RecordingExecutor executor = new RecordingExecutor(pool);
+        CompletableFuture<List<Customer>> future = executor.findAll(Customer.class, slow(), 0);
+        while (SCANNED.get() == 0)
+            Thread.sleep(10);
+        assertTrue(future.cancel(true));
+        assertReleased(pool, executor);
+    }
+
+    @Test
+    public void completedQueryIsNotCancelled() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        RecordingExecutor executor = new RecordingExecutor(pool);
+        Specification<Customer> byId = (root, query, cb) -> cb.equal(root.get("id"), 1L);
+        assertEquals(1, executor.findAll(Customer.class, byId, 5000).get().size());
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, executor.cancelled.get());
+    }
+
+    private static Specification<Customer> slow() {
+        return (root, query, cb) -> cb.equal(cb.function("SLOW_ROW", Integer.class, root.get("id")), 1);
+    }
+
+    // 执行线程结束即EntityManager已关闭、连接已归还; 全表扫描未完成说明SQL被取消
+    private static void assertReleased(ExecutorService pool, RecordingExecutor executor) throws InterruptedException {
+        pool.shutdown();
+        assertTrue("slow query was not cancelled",
+                pool.awaitTermination(CUSTOMERS * ROW_NANOS / 2, TimeUnit.NANOSECONDS));
+        assertEquals(1, executor.cancelled.get());
+        assertTrue(SCANNED.get() < CUSTOMERS);
+    }
+
+    /**
+     * 记录取消次数, 并关闭查询超时提示, 使慢查询只能由 cancelStatement 终止
+     */
+    private static class RecordingExecutor extends AsyncConditionExecutor {
+        private final AtomicInteger cancelled = new AtomicInteger();
+
+        RecordingExecutor(ExecutorService executor) {
+            super(entityManagerFactory, executor);
+        }
+
+        @Override
+        protected void cancelStatement(EntityManager em) {
+            cancelled.incrementAndGet();
+            super.cancelStatement(em);
+        }
+
+        @Override
+        protected void applyTimeout(TypedQuery<?> query, long timeoutMillis) {
+        }
+    }
+}
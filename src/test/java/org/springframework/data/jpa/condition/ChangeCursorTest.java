@@ -0,0 +1,150 @@
+package org.springframework.data.jpa.condition;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 增量条件测试
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see JpaCondition#changedSince(String, String, ChangeCursor, Duration)
+ * @since [产品/模块版本]
+ */
+public class ChangeCursorTest {
+    private static final int CUSTOMERS = 300;
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeClass
+    public static void setUp() {
+        entityManagerFactory = H2Persistence.create("condition-change");
+        new DataGenerator(3L).setCustomers(CUSTOMERS).setDays(30).setOrdersPerCustomer(0)
+                .generate(entityManagerFactory);
+        // 刚写入的行, 晚于安全延迟
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            Customer recent = new DataGenerator(3L).customer(CUSTOMERS + 1);
+            recent.setCreatedAt(new Date());
+            em.persist(recent);
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (Objects.nonNull(entityManagerFactory)) entityManagerFactory.close();
+    }
+
+    @Test
+    public void readsAllChangesInBatches() {
+        ChangeCursor cursor = null;
+        int total = 0;
+        Date previous = null;
+        List<Customer> batch;
+        do {
+            batch = findAll(specification(cursor, null), 50);
+            for (Customer customer : batch) {
+                assertTrue(Objects.isNull(previous) || !customer.getCreatedAt().before(previous));
+                previous = customer.getCreatedAt();
+            }
+            total += batch.size();
+            // 令牌往返
+            ChangeCursor next = ChangeCursor.next(batch, "createdAt", "id", cursor);
+            cursor = Objects.isNull(next) ? null : ChangeCursor.decode(next.encode());
+        } while (!batch.isEmpty());
+        assertEquals(CUSTOMERS + 1, total);
+    }
+
+    @Test
+    public void countDoesNotOrder() {
+        assertEquals(CUSTOMERS + 1, count(specification(null, null)));
+        ChangeCursor cursor = ChangeCursor.next(findAll(specification(null, null), 100), "createdAt", "id", null);
+        assertEquals(CUSTOMERS + 1 - 100, count(specification(cursor, null)));
+    }
+
+    @Test
+    public void lagDefersRecentRows() {
+        assertEquals(CUSTOMERS, count(specification(null, Duration.ofHours(1))));
+        assertEquals(CUSTOMERS, findAll(specification(null, Duration.ofHours(1)), CUSTOMERS * 2).size());
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void rangeBoundKeepsResults() {
+        List<Customer> all = findAll(specification(null, null), CUSTOMERS * 2);
+        for (int read : new int[]{1, 50, 150, CUSTOMERS}) {
+            ChangeCursor cursor = ChangeCursor.next(all.subList(0, read), "createdAt", "id", null);
+            // 不含前导下界的原始条件
+            Specification<Customer> orOnly = (root, query, cb) -> {
+                Path watermark = root.get("createdAt");
+                Path id = root.get("id");
+                Comparable watermarkValue = cursor.getWatermark();
+                Comparable idValue = cursor.getId();
+                query.orderBy(cb.asc(watermark), cb.asc(id));
+                return cb.or(cb.greaterThan(watermark, watermarkValue),
+                        cb.and(cb.equal(watermark, watermarkValue), cb.greaterThan(id, idValue)));
+            };
+            assertEquals("after " + read, ids(findAll(orOnly, CUSTOMERS * 2)),
+                    ids(findAll(specification(cursor, null), CUSTOMERS * 2)));
+            assertEquals(all.size() - read, count(specification(cursor, null)));
+        }
+    }
+
+    /* Support */
+
+    @SuppressWarnings("unchecked")
+    private static Specification<Customer> specification(ChangeCursor cursor, Duration lag) {
+        return JpaConditionUtils.specification(new Customer(),
+                (root, query, cb, jc) -> jc.clauseAnd(jc.changedSince("createdAt", "id", cursor, lag)));
+    }
+
+    private static List<Customer> findAll(Specification<Customer> specification, int maxResults) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            return LoadScenarios.findAll(em, Customer.class, specification, null, maxResults);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static List<Long> ids(List<Customer> customers) {
+        return customers.stream().map(Customer::getId).collect(Collectors.toList());
+    }
+
+    private static long count(Specification<Customer> specification) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Long> query = cb.createQuery(Long.class);
+            Root<Customer> root = query.from(Customer.class);
+            query.select(cb.count(root));
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (Objects.nonNull(predicate)) query.where(predicate);
+            return em.createQuery(query).getSingleResult();
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.springframework.data.jpa.condition;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 条件查询负载测试, 基于H2内存库与Hibernate, 默认构建不执行, 仅在 loadtest profile 中执行
+ * 数据规模与并发度可通过系统属性调整, 如
+ * mvn test -Ploadtest -Dloadtest.customers=100000 -Dloadtest.concurrency=1,4,16,64
+ * 报告输出至 loadtest.reportDir (默认 target/load-test)
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see LoadTestHarness
+ * @since [产品/模块版本]
+ */
+public class ConditionLoadTest {
+    private static final int CUSTOMERS = Integer.getInteger("loadtest.customers", 2000);
+
+    private static final int CATEGORIES = Integer.getInteger("loadtest.categories", 20);
+
+    private static final int REGIONS = Integer.getInteger("loadtest.regions", 8);
+
+    private static final int WORDS = Integer.getInteger("loadtest.words", 64);
+
+    private static final int ORDERS_PER_CUSTOMER = Integer.getInteger("loadtest.ordersPerCustomer", 3);
+
+    private static final int ITERATIONS = Integer.getInteger("loadtest.iterations", 20);
+
+    private static final int[] CONCURRENCY = Arrays.stream(
+            System.getProperty("loadtest.concurrency", "1,2,4,8").split(","))
+            .map(String::trim).mapToInt(Integer::parseInt).toArray();
+
+    private static final File REPORT_DIR = new File(System.getProperty("loadtest.reportDir", "target/load-test"));
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    private static DataGenerator generator;
+
+    private static LoadTestHarness harness;
+
+    @BeforeClass
+    public static void setUp() {
+        entityManagerFactory = H2Persistence.create("condition-load");
+        generator = new DataGenerator(Long.getLong("loadtest.seed", 20170901L))
+                .setCustomers(CUSTOMERS).setCategories(CATEGORIES).setRegions(REGIONS)
+                .setWords(WORDS).setOrdersPerCustomer(ORDERS_PER_CUSTOMER);
+        generator.generate(entityManagerFactory);
+        harness = new LoadTestHarness(entityManagerFactory, ITERATIONS, CONCURRENCY);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (Objects.nonNull(entityManagerFactory)) entityManagerFactory.close();
+    }
+
+    @Test
+    public void equalsScenario() throws Exception {
+        run("equals", LoadScenarios.equals(generator));
+    }
+
+    @Test
+    public void likesScenario() throws Exception {
+        run("likes", LoadScenarios.likes(generator));
+    }
+
+    @Test
+    public void betweenScenario() throws Exception {
+        run("between", LoadScenarios.between(generator));
+    }
+
+    @Test
+    public void paginationScenario() throws Exception {
+        LoadTestReport report = run("pagination", LoadScenarios.pagination(generator, 20, 5));
+        for (LoadTestReport.Level level : report.getLevels())
+            assertTrue("page size exceeded", level.getMaxContextEntities() <= 20);
+    }
+
+    @Test
+    public void associationScenario() throws Exception {
+        run("association", LoadScenarios.association(generator));
+    }
+
+    private LoadTestReport run(String name, LoadScenario scenario) throws Exception {
+        LoadTestReport report = harness.run(name, scenario)
+                .parameter("data", generator.toString())
+                .parameter("iterationsPerThread", ITERATIONS)
+                .parameter("concurrency", Arrays.stream(CONCURRENCY).mapToObj(String::valueOf)
+                        .collect(Collectors.joining(",")));
+        report.write(REPORT_DIR);
+        assertEquals(CONCURRENCY.length, report.getLevels().size());
+        for (LoadTestReport.Level level : report.getLevels()) {
+            assertEquals(name + " failed: " + level.getFirstError(), 0, level.getErrors());
+            assertEquals(ITERATIONS * level.getConcurrency(), level.getOperations());
+            assertTrue(name + " issued no statements", level.getStatements() >= level.getOperations());
+        }
+        return report;
+    }
+}
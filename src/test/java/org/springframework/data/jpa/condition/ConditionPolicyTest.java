@@ -0,0 +1,194 @@
+package org.springframework.data.jpa.condition;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.Column;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 条件查询守护策略测试
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see ConditionPolicy
+ * @since [产品/模块版本]
+ */
+public class ConditionPolicyTest {
+    private static final int CUSTOMERS = 200;
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeClass
+    public static void setUp() {
+        entityManagerFactory = H2Persistence.create("condition-policy");
+        new DataGenerator(1L).setCustomers(CUSTOMERS).setOrdersPerCustomer(0).generate(entityManagerFactory);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (Objects.nonNull(entityManagerFactory)) entityManagerFactory.close();
+    }
+
+    @Test
+    public void compositeIndexCountsLeadingColumnOnly() {
+        Set<String> indexed = new ConditionPolicy().indexedProperties(Customer.class);
+        assertTrue(indexed.contains("id"));
+        assertTrue(indexed.contains("code"));
+        assertTrue(indexed.contains("category"));
+        assertFalse(indexed.contains("region"));
+    }
+
+    @Test(expected = ConditionPolicyException.class)
+    public void rejectsTrailingColumnOfCompositeIndex() {
+        Customer model = new Customer();
+        model.setRegion(1);
+        ConditionPolicy policy = new ConditionPolicy().setRequireIndexedPredicate(true);
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            LoadScenarios.findAll(em, Customer.class, specification(model, policy, "region"), null, null);
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    public void countIgnoresCap() throws Exception {
+        ConditionPolicy policy = new ConditionPolicy().setMinSelectivePredicates(1)
+                .setMaxRows(10).setAction(ConditionPolicy.Action.CAP);
+        try (AsyncConditionExecutor executor = new AsyncConditionExecutor(entityManagerFactory, 2)) {
+            Specification<Customer> specification = specification(new Customer(), policy);
+            assertEquals(10, executor.findAll(Customer.class, specification).get().size());
+            assertEquals(Long.valueOf(CUSTOMERS), executor.count(Customer.class, specification, 0).get());
+        }
+        assertEquals(2, policy.violationCount(ConditionPolicy.Violation.TOO_FEW_PREDICATES));
+    }
+
+    @Test
+    public void propertyAccessIndexes() {
+        Set<String> indexed = new ConditionPolicy().indexedProperties(PropertyAccessCustomer.class);
+        assertTrue(indexed.contains("id"));
+        assertTrue(indexed.contains("code"));
+        assertTrue(indexed.contains("email"));
+        assertFalse(indexed.contains("name"));
+    }
+
+    @Test(expected = ConditionPolicyException.class)
+    public void rejectsLimitWithoutContext() {
+        Customer model = new Customer();
+        model.setCategory("category-1");
+        ConditionPolicy policy = new ConditionPolicy().setRequireRowLimit(true);
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            // 未开启 ConditionQueryContext, 声明的上限不会被应用
+            LoadScenarios.findAll(em, Customer.class, JpaConditionUtils.specification(model,
+                    (root, query, cb, jc) -> jc.setPolicy(policy).limit(10).clauseAnd(jc.equalsInclude("category"))),
+                    null, null);
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    public void limitAppliedWithContext() throws Exception {
+        ConditionPolicy policy = new ConditionPolicy().setRequireRowLimit(true);
+        try (AsyncConditionExecutor executor = new AsyncConditionExecutor(entityManagerFactory, 1)) {
+            Specification<Customer> specification = JpaConditionUtils.specification(new Customer(),
+                    (root, query, cb, jc) -> jc.setPolicy(policy).limit(10));
+            assertEquals(10, executor.findAll(Customer.class, specification).get().size());
+        }
+        assertEquals(0, policy.violationCount(ConditionPolicy.Violation.NO_ROW_LIMIT));
+    }
+
+    @Test
+    public void countsOnlyPredicatesInClause() {
+        Customer model = new Customer();
+        model.setCategory("category-1");
+        model.setRegion(1);
+        ConditionPolicy policy = new ConditionPolicy().setMinSelectivePredicates(2).setRequireIndexedPredicate(true);
+        // 生成后丢弃的断言不计入
+        assertRejected(model, policy, (root, query, cb, jc) -> {
+            jc.equal("category");
+            jc.clauseAnd(jc.equal("region"));
+        });
+        // Or 的两侧均不必然成立
+        assertRejected(model, policy, (root, query, cb, jc) -> jc.clauseOr(jc.equal("category"), jc.equal("region")));
+        assertEquals(2, policy.violationCount(ConditionPolicy.Violation.TOO_FEW_PREDICATES));
+        assertEquals(2, policy.violationCount(ConditionPolicy.Violation.NO_INDEXED_PREDICATE));
+
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            LoadScenarios.findAll(em, Customer.class, JpaConditionUtils.specification(model,
+                    (root, query, cb, jc) -> jc.setPolicy(policy).clauseAnd(jc.equal("category"), jc.equal("region"))),
+                    null, null);
+        } finally {
+            em.close();
+        }
+        assertEquals(2, policy.violationCount(ConditionPolicy.Violation.TOO_FEW_PREDICATES));
+    }
+
+    private static void assertRejected(Customer model, ConditionPolicy policy, ConditionSpecification<Customer> condition) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            LoadScenarios.findAll(em, Customer.class, JpaConditionUtils.specification(model,
+                    (root, query, cb, jc) -> condition.apply(root, query, cb, jc.setPolicy(policy))),
+                    null, null);
+            fail("condition should be rejected");
+        } catch (ConditionPolicyException e) {
+            assertTrue(e.getViolations().contains(ConditionPolicy.Violation.TOO_FEW_PREDICATES));
+        } finally {
+            em.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Specification<Customer> specification(Customer model, ConditionPolicy policy, String... names) {
+        return JpaConditionUtils.specification(model,
+                (root, query, cb, jc) -> jc.setPolicy(policy).clauseAnd(jc.equalsInclude(names)));
+    }
+
+    /**
+     * 属性访问的实体类, 映射注解在读取方法上
+     */
+    @Table(indexes = @Index(name = "idx_code", columnList = "code"))
+    public static class PropertyAccessCustomer {
+        private Long id;
+
+        private String code;
+
+        private String email;
+
+        private String name;
+
+        @Id
+        public Long getId() {
+            return id;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        @Column(unique = true)
+        public String getEmail() {
+            return email;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
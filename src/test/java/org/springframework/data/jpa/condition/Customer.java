@@ -0,0 +1,120 @@
+package org.springframework.data.jpa.condition;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.persistence.Transient;
+import java.util.Date;
+
+/**
+ * 测试实体-客户
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see DataGenerator
+ * @since [产品/模块版本]
+ */
+@Entity
+@Table(name = "customer", indexes = {
+        @Index(name = "idx_customer_code", columnList = "code"),
+        @Index(name = "idx_customer_category_region", columnList = "category, region")})
+public class Customer {
+    @Id
+    private Long id;
+
+    private String code;
+
+    private String name;
+
+    private String category;
+
+    private Integer region;
+
+    private Integer score;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdAt;
+
+    @Transient
+    private Date createdAtStart;
+
+    @Transient
+    private Date createdAtEnd;
+
+    /* Getter And Setter */
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public Integer getRegion() {
+        return region;
+    }
+
+    public void setRegion(Integer region) {
+        this.region = region;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public void setScore(Integer score) {
+        this.score = score;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getCreatedAtStart() {
+        return createdAtStart;
+    }
+
+    public void setCreatedAtStart(Date createdAtStart) {
+        this.createdAtStart = createdAtStart;
+    }
+
+    public Date getCreatedAtEnd() {
+        return createdAtEnd;
+    }
+
+    public void setCreatedAtEnd(Date createdAtEnd) {
+        this.createdAtEnd = createdAtEnd;
+    }
+}
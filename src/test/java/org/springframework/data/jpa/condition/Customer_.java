@@ -0,0 +1,30 @@
+package org.springframework.data.jpa.condition;
+
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.StaticMetamodel;
+import java.util.Date;
+
+/**
+ * Customer 静态元模型, 由JPA实现在创建 EntityManagerFactory 时填充
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see Customer
+ * @since [产品/模块版本]
+ */
+@StaticMetamodel(Customer.class)
+public class Customer_ {
+    public static volatile SingularAttribute<Customer, Long> id;
+
+    public static volatile SingularAttribute<Customer, String> code;
+
+    public static volatile SingularAttribute<Customer, String> name;
+
+    public static volatile SingularAttribute<Customer, String> category;
+
+    public static volatile SingularAttribute<Customer, Integer> region;
+
+    public static volatile SingularAttribute<Customer, Integer> score;
+
+    public static volatile SingularAttribute<Customer, Date> createdAt;
+}
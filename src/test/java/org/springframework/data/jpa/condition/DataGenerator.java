@@ -0,0 +1,222 @@
+package org.springframework.data.jpa.condition;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 测试数据生成器
+ * 行数、各列基数与关联数量可配置, 同一种子与主键总是生成相同的行
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see Customer
+ * @see PurchaseOrder
+ * @since [产品/模块版本]
+ */
+public class DataGenerator {
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ne", "su", "ta", "vo", "ri",
+            "ba", "de", "fu", "go", "hi", "ju", "ze", "wa"};
+
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * 创建时间起点 2017-01-01T00:00:00Z
+     */
+    public static final long EPOCH = 1483228800000L;
+
+    private final long seed;
+
+    private int customers = 1000;
+
+    private int categories = 20;
+
+    private int regions = 8;
+
+    private int words = 64;
+
+    private int days = 365;
+
+    private int ordersPerCustomer = 3;
+
+    /* Constractor */
+    public DataGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /* Generate */
+
+    /**
+     * 写入全部客户与订单
+     *
+     * @param entityManagerFactory EntityManagerFactory
+     */
+    public void generate(EntityManagerFactory entityManagerFactory) {
+        generate(entityManagerFactory, customer -> true);
+    }
+
+    /**
+     * 写入满足条件的客户及其订单, 用于按分片拆分同一份数据
+     *
+     * @param entityManagerFactory EntityManagerFactory
+     * @param filter               客户过滤条件
+     */
+    public void generate(EntityManagerFactory entityManagerFactory, Predicate<Customer> filter) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            int pending = 0;
+            for (long id = 1; id <= customers; id++) {
+                Customer customer = customer(id);
+                if (!filter.test(customer)) continue;
+                em.persist(customer);
+                for (int i = 0; i < ordersPerCustomer; i++)
+                    em.persist(order(customer, i));
+                pending += 1 + ordersPerCustomer;
+                if (pending >= BATCH_SIZE) {
+                    em.flush();
+                    em.clear();
+                    pending = 0;
+                }
+            }
+            em.getTransaction().commit();
+        } finally {
+            if (em.getTransaction().isActive()) em.getTransaction().rollback();
+            em.close();
+        }
+    }
+
+    /**
+     * 生成客户
+     *
+     * @param id 主键, 从1开始
+     * @return Customer
+     */
+    public Customer customer(long id) {
+        Random random = new Random(seed * 31 + id);
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setCode(String.format("C%08d", id));
+        customer.setName(word(random.nextInt(words)) + " " + word(random.nextInt(words)));
+        customer.setCategory(category(random.nextInt(categories)));
+        customer.setRegion(random.nextInt(regions));
+        customer.setScore(random.nextInt(1000));
+        customer.setCreatedAt(new Date(EPOCH + TimeUnit.DAYS.toMillis(random.nextInt(days))
+                + random.nextInt((int) TimeUnit.DAYS.toMillis(1))));
+        return customer;
+    }
+
+    /**
+     * 生成订单
+     *
+     * @param customer 客户
+     * @param index    客户的第几个订单
+     * @return PurchaseOrder
+     */
+    public PurchaseOrder order(Customer customer, int index) {
+        Random random = new Random(seed * 31 + customer.getId() * 1009 + index);
+        PurchaseOrder order = new PurchaseOrder();
+        order.setId(customer.getId() * (ordersPerCustomer + 1) + index);
+        order.setCustomer(customer);
+        order.setAmount(random.nextInt(10000));
+        return order;
+    }
+
+    /* Random Value */
+
+    public String category(int index) {
+        return "category-" + index;
+    }
+
+    public String randomCategory(Random random) {
+        return category(random.nextInt(categories));
+    }
+
+    public String word(int index) {
+        return SYLLABLES[index % SYLLABLES.length] + SYLLABLES[(index / SYLLABLES.length) % SYLLABLES.length]
+                + (index / (SYLLABLES.length * SYLLABLES.length));
+    }
+
+    public String randomWord(Random random) {
+        return word(random.nextInt(words));
+    }
+
+    public Date randomDate(Random random) {
+        return new Date(EPOCH + TimeUnit.DAYS.toMillis(random.nextInt(days)));
+    }
+
+    /* Getter And Setter */
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getCustomers() {
+        return customers;
+    }
+
+    public DataGenerator setCustomers(int customers) {
+        this.customers = customers;
+        return this;
+    }
+
+    public int getCategories() {
+        return categories;
+    }
+
+    public DataGenerator setCategories(int categories) {
+        this.categories = positive(categories);
+        return this;
+    }
+
+    public int getRegions() {
+        return regions;
+    }
+
+    public DataGenerator setRegions(int regions) {
+        this.regions = positive(regions);
+        return this;
+    }
+
+    public int getWords() {
+        return words;
+    }
+
+    public DataGenerator setWords(int words) {
+        this.words = positive(words);
+        return this;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public DataGenerator setDays(int days) {
+        this.days = positive(days);
+        return this;
+    }
+
+    public int getOrdersPerCustomer() {
+        return ordersPerCustomer;
+    }
+
+    public DataGenerator setOrdersPerCustomer(int ordersPerCustomer) {
+        this.ordersPerCustomer = ordersPerCustomer;
+        return this;
+    }
+
+    private static int positive(int value) {
+        if (value < 1) throw new IllegalArgumentException("Cardinality must be positive");
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "customers=" + customers + ", categories=" + categories + ", regions=" + regions
+                + ", words=" + words + ", days=" + days + ", ordersPerCustomer=" + ordersPerCustomer
+                + ", seed=" + seed;
+    }
+}
@@ -0,0 +1,33 @@
+package org.springframework.data.jpa.condition;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 测试用H2内存库的EntityManagerFactory
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see [相关类/方法]
+ * @since [产品/模块版本]
+ */
+public class H2Persistence {
+    /**
+     * 测试持久化单元名
+     */
+    public static final String UNIT = "condition-test";
+
+    /**
+     * 创建独立内存库的EntityManagerFactory, 同名内存库在进程内共享
+     *
+     * @param database 内存库名
+     * @return EntityManagerFactory
+     */
+    public static EntityManagerFactory create(String database) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("javax.persistence.jdbc.url", "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        return Persistence.createEntityManagerFactory(UNIT, properties);
+    }
+}
@@ -0,0 +1,146 @@
+package org.springframework.data.jpa.condition;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 静态元模型条件测试, 结果与按属性名生成的条件一致
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see Customer_
+ * @since [产品/模块版本]
+ */
+public class JpaConditionMetamodelTest {
+    private static final int CUSTOMERS = 300;
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    private static DataGenerator generator;
+
+    @BeforeClass
+    public static void setUp() {
+        entityManagerFactory = H2Persistence.create("condition-metamodel");
+        generator = new DataGenerator(5L).setCustomers(CUSTOMERS).setCategories(10).setRegions(4)
+                .setWords(16).setDays(30).setOrdersPerCustomer(0);
+        generator.generate(entityManagerFactory);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (Objects.nonNull(entityManagerFactory)) entityManagerFactory.close();
+    }
+
+    @Test
+    public void equalMatchesPropertyName() {
+        Customer model = new Customer();
+        model.setCategory(generator.category(3));
+        List<Customer> typed = findAll(model, (root, query, cb, jc) -> jc.clauseAnd(jc.equal(Customer_.category)));
+        assertFalse(typed.isEmpty());
+        assertTrue(typed.stream().allMatch(customer -> model.getCategory().equals(customer.getCategory())));
+        assertEquals(ids(findAll(model, (root, query, cb, jc) -> jc.clauseAnd(jc.equal("category")))), ids(typed));
+    }
+
+    @Test
+    public void equalsIncludeMatchesPropertyNames() {
+        Customer model = new Customer();
+        model.setCategory(generator.category(1));
+        model.setRegion(2);
+        List<Customer> typed = findAll(model,
+                (root, query, cb, jc) -> jc.clauseAnd(jc.equalsInclude(Customer_.category, Customer_.region)));
+        assertEquals(ids(findAll(model,
+                (root, query, cb, jc) -> jc.clauseAnd(jc.equalsInclude("category", "region")))), ids(typed));
+    }
+
+    @Test
+    public void betweenUsesStartAndEnd() {
+        Customer model = new Customer();
+        Date start = new Date(DataGenerator.EPOCH + TimeUnit.DAYS.toMillis(10));
+        Date end = new Date(DataGenerator.EPOCH + TimeUnit.DAYS.toMillis(15));
+        model.setCreatedAtStart(start);
+        model.setCreatedAtEnd(end);
+        List<Customer> typed = findAll(model, (root, query, cb, jc) -> jc.clauseAnd(jc.between(Customer_.createdAt)));
+        assertFalse(typed.isEmpty());
+        assertTrue(typed.stream().allMatch(customer ->
+                !customer.getCreatedAt().before(start) && customer.getCreatedAt().before(end)));
+        assertEquals(ids(findAll(model, (root, query, cb, jc) -> jc.clauseAnd(jc.between("createdAt")))), ids(typed));
+    }
+
+    @Test
+    public void likeMatchesPropertyName() {
+        Customer model = new Customer();
+        model.setName(generator.word(5));
+        List<Customer> typed = findAll(model, (root, query, cb, jc) -> jc.clauseAnd(jc.like(Customer_.name)));
+        assertFalse(typed.isEmpty());
+        assertTrue(typed.stream().allMatch(customer -> customer.getName().contains(model.getName())));
+        assertEquals(ids(findAll(model, (root, query, cb, jc) -> jc.clauseAnd(jc.likesInclude("name")))), ids(typed));
+        // 无参调用仍为按属性名的重载
+        assertEquals(ids(findAll(model, (root, query, cb, jc) -> jc.clauseAnd(jc.likesExclude()))), ids(typed));
+    }
+
+    @Test
+    public void setRootResetsPathCache() {
+        Customer model = new Customer();
+        model.setCategory(generator.category(2));
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Customer> first = cb.createQuery(Customer.class);
+            Root<Customer> firstRoot = first.from(Customer.class);
+            JpaCondition<Customer> jc = JpaConditionUtils.condition(firstRoot, first, cb, model);
+            Path<String> firstPath = jc.path(Customer_.category);
+            assertSame(firstPath, jc.path(Customer_.category));
+            assertSame(firstRoot, firstPath.getParentPath());
+
+            // 复用条件对象生成第二个查询
+            CriteriaQuery<Customer> second = cb.createQuery(Customer.class);
+            Root<Customer> secondRoot = second.from(Customer.class);
+            jc.setRoot(secondRoot);
+            jc.setQuery(second);
+            Path<String> secondPath = jc.path(Customer_.category);
+            assertNotSame(firstPath, secondPath);
+            assertSame(secondRoot, secondPath.getParentPath());
+            second.select(secondRoot).where(jc.equal(Customer_.category));
+            List<Customer> customers = em.createQuery(second).getResultList();
+            assertFalse(customers.isEmpty());
+            assertTrue(customers.stream().allMatch(customer -> model.getCategory().equals(customer.getCategory())));
+        } finally {
+            em.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Customer> findAll(Customer model, ConditionSpecification<Customer> condition) {
+        Specification<Customer> specification = JpaConditionUtils.specification(model, condition);
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            return LoadScenarios.findAll(em, Customer.class, specification, null, null);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static List<Long> ids(List<Customer> customers) {
+        return customers.stream().map(Customer::getId).sorted().collect(Collectors.toList());
+    }
+}
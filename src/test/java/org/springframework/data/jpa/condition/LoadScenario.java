@@ -0,0 +1,24 @@
+package org.springframework.data.jpa.condition;
+
+import javax.persistence.EntityManager;
+import java.util.Random;
+
+/**
+ * 负载测试场景, 每次调用执行一次查询
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see LoadScenarios
+ * @since [产品/模块版本]
+ */
+@FunctionalInterface
+public interface LoadScenario {
+    /**
+     * 执行一次查询
+     *
+     * @param em     本次查询独占的EntityManager
+     * @param random 当前线程的随机数, 用于选取查询参数
+     * @return 返回行数
+     */
+    int execute(EntityManager em, Random random);
+}
@@ -0,0 +1,149 @@
+package org.springframework.data.jpa.condition;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 条件查询负载测试场景: 等值、模糊、区间、分页与关联
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see LoadTestHarness
+ * @since [产品/模块版本]
+ */
+public class LoadScenarios {
+    /**
+     * 等值查询: 类别 + 区域, 命中联合索引
+     *
+     * @param generator 数据生成器, 用于选取存在的取值
+     * @return LoadScenario
+     */
+    @SuppressWarnings("unchecked")
+    public static LoadScenario equals(DataGenerator generator) {
+        return (em, random) -> {
+            Customer model = new Customer();
+            model.setCategory(generator.randomCategory(random));
+            model.setRegion(random.nextInt(generator.getRegions()));
+            return findAll(em, Customer.class, JpaConditionUtils.specification(model,
+                    (root, query, cb, jc) -> jc.clauseAnd(jc.equalsInclude("category", "region"))),
+                    null, null).size();
+        };
+    }
+
+    /**
+     * 模糊查询: 名称包含随机单词
+     *
+     * @param generator 数据生成器
+     * @return LoadScenario
+     */
+    @SuppressWarnings("unchecked")
+    public static LoadScenario likes(DataGenerator generator) {
+        return (em, random) -> {
+            Customer model = new Customer();
+            model.setName(generator.randomWord(random));
+            return findAll(em, Customer.class, JpaConditionUtils.specification(model,
+                    (root, query, cb, jc) -> jc.clauseAnd(jc.likesInclude("name"))),
+                    null, null).size();
+        };
+    }
+
+    /**
+     * 区间查询: 创建时间位于随机的一周内
+     *
+     * @param generator 数据生成器
+     * @return LoadScenario
+     */
+    @SuppressWarnings("unchecked")
+    public static LoadScenario between(DataGenerator generator) {
+        return (em, random) -> {
+            Date start = generator.randomDate(random);
+            Customer model = new Customer();
+            model.setCreatedAtStart(start);
+            model.setCreatedAtEnd(new Date(start.getTime() + TimeUnit.DAYS.toMillis(7)));
+            return findAll(em, Customer.class, JpaConditionUtils.specification(model,
+                    (root, query, cb, jc) -> jc.clauseAnd(jc.between("createdAt"))),
+                    null, null).size();
+        };
+    }
+
+    /**
+     * 分页查询: 按类别过滤, 主键排序, 随机页码
+     *
+     * @param generator 数据生成器
+     * @param pageSize  每页行数
+     * @param maxPage   最大页码(不含)
+     * @return LoadScenario
+     */
+    @SuppressWarnings("unchecked")
+    public static LoadScenario pagination(DataGenerator generator, int pageSize, int maxPage) {
+        return (em, random) -> {
+            Customer model = new Customer();
+            model.setCategory(generator.randomCategory(random));
+            return findAll(em, Customer.class, JpaConditionUtils.specification(model,
+                    (root, query, cb, jc) -> {
+                        query.orderBy(cb.asc(root.get("id")));
+                        jc.clauseAnd(jc.equalsInclude("category"));
+                    }),
+                    random.nextInt(maxPage) * pageSize, pageSize).size();
+        };
+    }
+
+    /**
+     * 关联查询: 按客户类别与金额下限查询订单, 并访问延迟加载的客户
+     *
+     * @param generator 数据生成器
+     * @return LoadScenario
+     */
+    @SuppressWarnings("unchecked")
+    public static LoadScenario association(DataGenerator generator) {
+        return (em, random) -> {
+            String category = generator.randomCategory(random);
+            PurchaseOrder model = new PurchaseOrder();
+            model.setAmount(random.nextInt(10000));
+            List<PurchaseOrder> orders = findAll(em, PurchaseOrder.class, JpaConditionUtils.specification(model,
+                    (root, query, cb, jc) -> jc.clauseAnd(
+                            cb.equal(root.get("customer").get("category"), category),
+                            jc.greaterThanOrEqualTo("amount"))),
+                    null, null);
+            orders.forEach(order -> Objects.requireNonNull(order.getCustomer().getName()));
+            return orders.size();
+        };
+    }
+
+    /* Support */
+
+    /**
+     * 按查询规格查询
+     *
+     * @param em            EntityManager
+     * @param domainClass   实体类
+     * @param specification 查询规格
+     * @param firstResult   起始行, null时不限制
+     * @param maxResults    最大行数, null时不限制
+     * @param <T>           实体类类型
+     * @return List<T>
+     */
+    public static <T> List<T> findAll(EntityManager em, Class<T> domainClass, Specification<T> specification,
+                                      Integer firstResult, Integer maxResults) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(domainClass);
+        Root<T> root = query.from(domainClass);
+        query.select(root);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (Objects.nonNull(predicate)) query.where(predicate);
+        TypedQuery<T> typedQuery = em.createQuery(query);
+        if (Objects.nonNull(firstResult)) typedQuery.setFirstResult(firstResult);
+        if (Objects.nonNull(maxResults)) typedQuery.setMaxResults(maxResults);
+        return typedQuery.getResultList();
+    }
+}
@@ -0,0 +1,193 @@
+package org.springframework.data.jpa.condition;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 条件查询负载测试执行器
+ * 按并发度由低到高依次执行场景, 统计延迟、SQL语句数、加载行数与持久化上下文大小
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see LoadScenarios
+ * @see LoadTestReport
+ * @since [产品/模块版本]
+ */
+public class LoadTestHarness {
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final int iterations;
+
+    private final int[] concurrencyLevels;
+
+    private long seed = 20170901L;
+
+    private int warmupIterations = 10;
+
+    /* Constractor */
+
+    /**
+     * @param entityManagerFactory 开启 hibernate.generate_statistics 的EntityManagerFactory
+     * @param iterations           每个线程的查询次数
+     * @param concurrencyLevels    并发度, 按顺序执行
+     */
+    public LoadTestHarness(EntityManagerFactory entityManagerFactory, int iterations, int... concurrencyLevels) {
+        if (iterations < 1 || concurrencyLevels.length == 0)
+            throw new IllegalArgumentException("iterations and concurrency levels are required");
+        this.entityManagerFactory = entityManagerFactory;
+        this.iterations = iterations;
+        this.concurrencyLevels = concurrencyLevels.clone();
+    }
+
+    /* Run */
+
+    /**
+     * 执行场景
+     *
+     * @param name     场景名
+     * @param scenario LoadScenario
+     * @return LoadTestReport
+     * @throws InterruptedException 等待工作线程时被中断
+     */
+    public LoadTestReport run(String name, LoadScenario scenario) throws InterruptedException {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        Random warmup = new Random(seed);
+        for (int i = 0; i < warmupIterations; i++)
+            execute(scenario, warmup, new Sample(1));
+
+        LoadTestReport report = new LoadTestReport(name);
+        for (int concurrency : concurrencyLevels) {
+            statistics.clear();
+            ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+            try {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Sample>> futures = new ArrayList<>();
+                for (int t = 0; t < concurrency; t++) {
+                    Random random = new Random(seed + concurrency * 1000L + t);
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        Sample sample = new Sample(iterations);
+                        for (int i = 0; i < iterations; i++)
+                            execute(scenario, random, sample);
+                        return sample;
+                    }));
+                }
+                long begin = System.nanoTime();
+                start.countDown();
+                Sample total = new Sample(iterations * concurrency);
+                for (Future<Sample> future : futures)
+                    total.merge(future.get());
+                long elapsed = System.nanoTime() - begin;
+                report.add(new LoadTestReport.Level(concurrency, elapsed, total.latencies, total.count,
+                        total.errors, total.firstError, total.rows,
+                        statistics.getPrepareStatementCount(), statistics.getEntityLoadCount(),
+                        total.contextEntities, total.maxContextEntities));
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Load test worker failed", e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        return report;
+    }
+
+    // 每次查询使用新的EntityManager, 与一次请求一个持久化上下文一致
+    private void execute(LoadScenario scenario, Random random, Sample sample) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        long begin = System.nanoTime();
+        try {
+            int rows = scenario.execute(em, random);
+            sample.record(System.nanoTime() - begin, rows,
+                    em.unwrap(Session.class).getStatistics().getEntityCount());
+        } catch (RuntimeException e) {
+            sample.error(System.nanoTime() - begin, e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /* Sample */
+
+    private static class Sample {
+        private long[] latencies;
+
+        private int count;
+
+        private int errors;
+
+        private String firstError;
+
+        private long rows;
+
+        private long contextEntities;
+
+        private int maxContextEntities;
+
+        Sample(int capacity) {
+            latencies = new long[capacity];
+        }
+
+        void record(long latency, int rows, int contextEntities) {
+            add(latency);
+            this.rows += rows;
+            this.contextEntities += contextEntities;
+            maxContextEntities = Math.max(maxContextEntities, contextEntities);
+        }
+
+        void error(long latency, RuntimeException e) {
+            add(latency);
+            if (errors++ == 0) firstError = e.toString();
+        }
+
+        void merge(Sample other) {
+            for (int i = 0; i < other.count; i++)
+                add(other.latencies[i]);
+            errors += other.errors;
+            if (Objects.isNull(firstError)) firstError = other.firstError;
+            rows += other.rows;
+            contextEntities += other.contextEntities;
+            maxContextEntities = Math.max(maxContextEntities, other.maxContextEntities);
+        }
+
+        private void add(long latency) {
+            if (count == latencies.length)
+                latencies = Arrays.copyOf(latencies, Math.max(1, count * 2));
+            latencies[count++] = latency;
+        }
+    }
+
+    /* Getter And Setter */
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public LoadTestHarness setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public int getWarmupIterations() {
+        return warmupIterations;
+    }
+
+    public LoadTestHarness setWarmupIterations(int warmupIterations) {
+        this.warmupIterations = warmupIterations;
+        return this;
+    }
+}
@@ -0,0 +1,224 @@
+package org.springframework.data.jpa.condition;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 负载测试报告, 输出为JSON
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see LoadTestHarness
+ * @since [产品/模块版本]
+ */
+public class LoadTestReport {
+    private final String scenario;
+
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+    private final List<Level> levels = new ArrayList<>();
+
+    /* Constractor */
+    public LoadTestReport(String scenario) {
+        this.scenario = Objects.requireNonNull(scenario);
+    }
+
+    /* Report */
+
+    public LoadTestReport add(Level level) {
+        levels.add(level);
+        return this;
+    }
+
+    public LoadTestReport parameter(String name, Object value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    /**
+     * 写入 {目录}/{场景名}.json
+     *
+     * @param directory 报告目录, 不存在时创建
+     * @return 报告文件
+     * @throws IOException 写入失败
+     */
+    public File write(File directory) throws IOException {
+        Files.createDirectories(directory.toPath());
+        File file = new File(directory, scenario + ".json");
+        Files.write(file.toPath(), toJson().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\n  \"scenario\": ").append(quote(scenario))
+                .append(",\n  \"parameters\": {");
+        String separator = "";
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            json.append(separator).append("\n    ").append(quote(parameter.getKey())).append(": ")
+                    .append(value(parameter.getValue()));
+            separator = ",";
+        }
+        json.append(parameters.isEmpty() ? "}" : "\n  }").append(",\n  \"levels\": [");
+        separator = "";
+        for (Level level : levels) {
+            json.append(separator).append("\n    ").append(level.toJson());
+            separator = ",";
+        }
+        return json.append(levels.isEmpty() ? "]" : "\n  ]").append("\n}\n").toString();
+    }
+
+    private static String value(Object value) {
+        if (Objects.isNull(value)) return "null";
+        if (value instanceof Number || value instanceof Boolean) return value.toString();
+        return quote(value.toString());
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') quoted.append('\\').append(c);
+            else if (c < 0x20) quoted.append(String.format("\\u%04x", (int) c));
+            else quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+
+    /* Getter */
+
+    public String getScenario() {
+        return scenario;
+    }
+
+    public Map<String, Object> getParameters() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    public List<Level> getLevels() {
+        return Collections.unmodifiableList(levels);
+    }
+
+    /**
+     * 单个并发度的测试结果
+     */
+    public static class Level {
+        private final int concurrency;
+
+        private final long elapsedNanos;
+
+        private final long[] latencies;
+
+        private final int errors;
+
+        private final String firstError;
+
+        private final long rows;
+
+        private final long statements;
+
+        private final long entityLoads;
+
+        private final long contextEntities;
+
+        private final int maxContextEntities;
+
+        /* Constractor */
+        public Level(int concurrency, long elapsedNanos, long[] latencies, int operations, int errors,
+                     String firstError, long rows, long statements, long entityLoads,
+                     long contextEntities, int maxContextEntities) {
+            this.concurrency = concurrency;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = Arrays.copyOf(latencies, operations);
+            Arrays.sort(this.latencies);
+            this.errors = errors;
+            this.firstError = firstError;
+            this.rows = rows;
+            this.statements = statements;
+            this.entityLoads = entityLoads;
+            this.contextEntities = contextEntities;
+            this.maxContextEntities = maxContextEntities;
+        }
+
+        /**
+         * 延迟百分位(毫秒)
+         *
+         * @param percentile 百分位, 0-100
+         * @return 毫秒
+         */
+        public double latencyMillis(double percentile) {
+            if (latencies.length == 0) return 0;
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return nanosToMillis(latencies[Math.max(0, Math.min(index, latencies.length - 1))]);
+        }
+
+        public double throughput() {
+            return elapsedNanos == 0 ? 0 : getOperations() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+
+        private double perOperation(long total) {
+            return getOperations() == 0 ? 0 : (double) total / getOperations();
+        }
+
+        private static double nanosToMillis(long nanos) {
+            return nanos / 1_000_000d;
+        }
+
+        String toJson() {
+            return String.format(Locale.ROOT, "{\"concurrency\": %d, \"operations\": %d, \"errors\": %d, "
+                            + "\"firstError\": %s, \"elapsedMillis\": %.3f, \"throughputPerSecond\": %.2f, "
+                            + "\"latencyMillis\": {\"p50\": %.3f, \"p95\": %.3f, \"p99\": %.3f, \"max\": %.3f}, "
+                            + "\"rows\": %d, \"rowsPerOperation\": %.2f, "
+                            + "\"statements\": %d, \"statementsPerOperation\": %.2f, "
+                            + "\"entityLoads\": %d, \"entityLoadsPerOperation\": %.2f, "
+                            + "\"persistenceContext\": {\"avgEntities\": %.2f, \"maxEntities\": %d}}",
+                    concurrency, getOperations(), errors, value(firstError), nanosToMillis(elapsedNanos),
+                    throughput(), latencyMillis(50), latencyMillis(95), latencyMillis(99), latencyMillis(100),
+                    rows, perOperation(rows), statements, perOperation(statements),
+                    entityLoads, perOperation(entityLoads), perOperation(contextEntities), maxContextEntities);
+        }
+
+        /* Getter */
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public int getOperations() {
+            return latencies.length;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+
+        public String getFirstError() {
+            return firstError;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getStatements() {
+            return statements;
+        }
+
+        public long getEntityLoads() {
+            return entityLoads;
+        }
+
+        public int getMaxContextEntities() {
+            return maxContextEntities;
+        }
+    }
+}
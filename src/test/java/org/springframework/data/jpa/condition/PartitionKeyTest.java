@@ -0,0 +1,70 @@
+package org.springframework.data.jpa.condition;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 分区键范围测试
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see PartitionKey
+ * @since [产品/模块版本]
+ */
+public class PartitionKeyTest {
+    private static final LocalDate LOWER = LocalDate.of(2024, 3, 10);
+
+    private static final LocalDate UPPER = LocalDate.of(2024, 3, 15);
+
+    @Test
+    public void dayKeyInMonthPartitions() {
+        PartitionKey key = new PartitionKey("createdDay", PartitionGranularity.MONTH, PartitionKeyEncoding.YYYYMMDD);
+        assertEquals(20240301, key.lowerBound(LOWER, Integer.class));
+        // 2024-03-15 的行 createdDay = 20240315, 上界须大于它
+        assertEquals(20240401, key.upperBound(UPPER, Integer.class));
+    }
+
+    @Test
+    public void monthKeyInDayPartitions() {
+        PartitionKey key = new PartitionKey("createdMonth", PartitionGranularity.DAY, PartitionKeyEncoding.YYYYMM);
+        assertEquals(202403L, key.lowerBound(LOWER, Long.class));
+        assertEquals(202404L, key.upperBound(UPPER, Long.class));
+    }
+
+    @Test
+    public void nativeKeyUpperBoundIsNextPartitionStart() {
+        PartitionKey key = new PartitionKey("createdDate", PartitionGranularity.MONTH);
+        assertEquals(LocalDate.of(2024, 3, 1), key.lowerBound(LOWER, LocalDate.class));
+        assertEquals(LocalDate.of(2024, 4, 1).atStartOfDay(),
+                key.upperBound(UPPER.atTime(23, 59), LocalDateTime.class));
+        assertEquals(LocalDate.of(2025, 1, 1),
+                new PartitionKey("createdDate", PartitionGranularity.YEAR).upperBound(UPPER, LocalDate.class));
+    }
+
+    @Test
+    public void encodingMismatchSkipsPruning() {
+        assertNull(new PartitionKey("createdDay", PartitionGranularity.MONTH).lowerBound(LOWER, Integer.class));
+        assertNull(new PartitionKey("createdDay", PartitionGranularity.MONTH, PartitionKeyEncoding.YYYYMMDD)
+                .upperBound(UPPER, LocalDate.class));
+    }
+
+    @Test
+    public void instantsConvertInDeclaredZone() {
+        Instant instant = Instant.parse("2024-03-31T20:00:00Z");
+        PartitionKey west = new PartitionKey("createdDay", PartitionGranularity.DAY,
+                PartitionKeyEncoding.YYYYMMDD, ZoneId.of("Etc/GMT+12"));
+        PartitionKey east = new PartitionKey("createdDay", PartitionGranularity.DAY,
+                PartitionKeyEncoding.YYYYMMDD, ZoneId.of("Pacific/Kiritimati"));
+        assertEquals(20240331, west.lowerBound(instant, Integer.class));
+        assertEquals(20240401, west.upperBound(instant, Integer.class));
+        assertEquals(20240401, east.lowerBound(instant, Integer.class));
+        assertEquals(20240402, east.upperBound(instant, Integer.class));
+    }
+}
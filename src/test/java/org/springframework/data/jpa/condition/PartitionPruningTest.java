@@ -0,0 +1,113 @@
+package org.springframework.data.jpa.condition;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * 分区裁剪测试, 经 JpaCondition.between 附加分区键范围
+ * 分区键由写入方在 UTC-12 截断, 与JVM默认时区无关
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see JpaCondition#prune(String, javax.persistence.criteria.Predicate, Object, Object)
+ * @since [产品/模块版本]
+ */
+public class PartitionPruningTest {
+    private static final ZoneId WRITER_ZONE = ZoneId.of("Etc/GMT+12");
+
+    // 跨越月界 2017-03-31/2017-04-01 的两天, 每小时一行
+    private static final Instant BASE = Instant.parse("2017-03-31T00:00:00Z");
+
+    private static final int HOURS = 48;
+
+    // 发货时间在任意窗口内, 分区键却不一致的行, 分区键范围生效时被排除
+    private static final long STRAY_ID = 1000L;
+
+    private static final List<Shipment> SHIPMENTS = new ArrayList<>();
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeClass
+    public static void setUp() {
+        entityManagerFactory = H2Persistence.create("condition-partition");
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(WRITER_ZONE);
+        for (int hour = 0; hour < HOURS; hour++) {
+            Instant shippedAt = BASE.plusSeconds(TimeUnit.HOURS.toSeconds(hour));
+            SHIPMENTS.add(shipment(hour + 1L, shippedAt, Integer.valueOf(format.format(shippedAt))));
+        }
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            SHIPMENTS.forEach(em::persist);
+            em.persist(shipment(STRAY_ID, BASE.plusSeconds(TimeUnit.HOURS.toSeconds(HOURS / 2)), 19700101));
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+        PartitionKey.declare(Shipment.class, "shippedAt", "shippedDay",
+                PartitionGranularity.DAY, PartitionKeyEncoding.YYYYMMDD, WRITER_ZONE);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        PartitionKey.undeclare(Shipment.class, "shippedAt");
+        if (Objects.nonNull(entityManagerFactory)) entityManagerFactory.close();
+    }
+
+    @Test
+    public void prunedRangeKeepsEveryMatchingRow() {
+        for (int startHour = 0; startHour < HOURS; startHour += 3) {
+            Date start = Date.from(BASE.plusSeconds(TimeUnit.HOURS.toSeconds(startHour)));
+            Date end = new Date(start.getTime() + TimeUnit.HOURS.toMillis(5));
+            List<Long> expected = SHIPMENTS.stream()
+                    .filter(shipment -> !shipment.getShippedAt().before(start) && shipment.getShippedAt().before(end))
+                    .map(Shipment::getId).collect(Collectors.toList());
+            assertFalse(expected.isEmpty());
+            // 分区键范围生效时不一致的行被排除, 一致的行全部保留
+            assertEquals("window starting at hour " + startHour, expected, between(start, end));
+        }
+    }
+
+    @Test
+    public void openBoundsArePruned() {
+        Date start = Date.from(BASE.plusSeconds(TimeUnit.HOURS.toSeconds(HOURS / 2)));
+        List<Long> expected = SHIPMENTS.stream().filter(shipment -> !shipment.getShippedAt().before(start))
+                .map(Shipment::getId).collect(Collectors.toList());
+        assertEquals(expected, between(start, null));
+    }
+
+    private static List<Long> between(Date start, Date end) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            return LoadScenarios.findAll(em, Shipment.class, JpaConditionUtils.specification(new Shipment(),
+                    (root, query, cb, jc) -> jc.clauseAnd(jc.between("shippedAt", start, end))), null, null)
+                    .stream().map(Shipment::getId).sorted().collect(Collectors.toList());
+        } finally {
+            em.close();
+        }
+    }
+
+    private static Shipment shipment(long id, Instant shippedAt, int shippedDay) {
+        Shipment shipment = new Shipment();
+        shipment.setId(id);
+        shipment.setShippedAt(Date.from(shippedAt));
+        shipment.setShippedDay(shippedDay);
+        return shipment;
+    }
+}
@@ -0,0 +1,53 @@
+package org.springframework.data.jpa.condition;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+/**
+ * 测试实体-订单, 多对一关联客户
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see DataGenerator
+ * @since [产品/模块版本]
+ */
+@Entity
+@Table(name = "purchase_order")
+public class PurchaseOrder {
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Customer customer;
+
+    private Integer amount;
+
+    /* Getter And Setter */
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(Customer customer) {
+        this.customer = customer;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+}
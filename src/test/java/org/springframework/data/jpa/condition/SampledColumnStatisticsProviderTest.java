@@ -0,0 +1,79 @@
+package org.springframework.data.jpa.condition;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 采样式列统计信息测试
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see SampledColumnStatisticsProvider
+ * @since [产品/模块版本]
+ */
+public class SampledColumnStatisticsProviderTest {
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeClass
+    public static void setUp() {
+        entityManagerFactory = H2Persistence.create("condition-statistics");
+        new DataGenerator(1L).setCustomers(500).setCategories(5).setOrdersPerCustomer(0)
+                .generate(entityManagerFactory);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (Objects.nonNull(entityManagerFactory)) entityManagerFactory.close();
+    }
+
+    @Test
+    public void samplesInBackground() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        SampledColumnStatisticsProvider provider = new SampledColumnStatisticsProvider(entityManagerFactory,
+                command -> new Thread(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    command.run();
+                }).start());
+        // 采样未完成时不阻塞调用方
+        assertNull(provider.statistics(Customer.class));
+        release.countDown();
+        ColumnStatistics statistics = await(provider);
+        assertTrue(statistics.distinctCount("code") > statistics.distinctCount("category"));
+        assertEquals(Arrays.asList("code", "category"),
+                Arrays.asList("category", "code").stream().sorted(statistics.selectivityOrder())
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void sampleIsBounded() throws Exception {
+        SampledColumnStatisticsProvider provider = new SampledColumnStatisticsProvider(entityManagerFactory)
+                .setSampleSize(50);
+        assertEquals(50, await(provider).distinctCount("code"));
+    }
+
+    private static ColumnStatistics await(SampledColumnStatisticsProvider provider) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        ColumnStatistics statistics;
+        while (Objects.isNull(statistics = provider.statistics(Customer.class)) && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        assertNotNull(statistics);
+        return statistics;
+    }
+}
@@ -0,0 +1,169 @@
+package org.springframework.data.jpa.condition;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.Order;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 分片条件查询测试, 每个分片为一个独立的H2内存库, 另有一个包含全部数据的参照库
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see ShardedConditionExecutor
+ * @since [产品/模块版本]
+ */
+public class ShardedConditionExecutorTest {
+    private static final int SHARDS = 3;
+
+    private static final ShardingStrategy STRATEGY = new HashShardingStrategy(SHARDS);
+
+    private static final DataGenerator GENERATOR = new DataGenerator(7L)
+            .setCustomers(600).setCategories(4).setRegions(9).setOrdersPerCustomer(0);
+
+    private static final List<EntityManagerFactory> FACTORIES = new ArrayList<>();
+
+    private static final List<AsyncConditionExecutor> EXECUTORS = new ArrayList<>();
+
+    private static EntityManagerFactory reference;
+
+    private static ShardedConditionExecutor sharded;
+
+    @BeforeClass
+    public static void setUp() {
+        reference = H2Persistence.create("condition-shard-reference");
+        GENERATOR.generate(reference);
+        clearScores(reference);
+        for (int shard = 0; shard < SHARDS; shard++) {
+            EntityManagerFactory factory = H2Persistence.create("condition-shard-" + shard);
+            int current = shard;
+            GENERATOR.generate(factory, customer -> STRATEGY.shardOf(customer.getRegion()) == current);
+            clearScores(factory);
+            FACTORIES.add(factory);
+            EXECUTORS.add(new AsyncConditionExecutor(factory, 2));
+        }
+        sharded = new ShardedConditionExecutor("region", STRATEGY, EXECUTORS);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        EXECUTORS.forEach(AsyncConditionExecutor::close);
+        FACTORIES.forEach(EntityManagerFactory::close);
+        if (Objects.nonNull(reference)) reference.close();
+    }
+
+    // 部分行的排序键为null
+    private static void clearScores(EntityManagerFactory factory) {
+        EntityManager em = factory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createQuery("update Customer c set c.score = null where mod(c.id, 7) = 0").executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    public void routesEqualityToOneShard() throws Exception {
+        Customer model = new Customer();
+        model.setRegion(4);
+        Specification<Customer> specification = specification(model, null, "region");
+        assertEquals(Collections.singleton(STRATEGY.shardOf(4)), sharded.route(Customer.class, specification));
+        assertEquals(ids(reference(specification, null, 0)),
+                ids(sharded.findAll(Customer.class, specification, null, 0, 0).get()));
+    }
+
+    @Test
+    public void mergeMatchesDatabaseOrderWithNulls() throws Exception {
+        Customer model = new Customer();
+        model.setCategory(GENERATOR.category(1));
+        Specification<Customer> specification = specification(model, null, "category");
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            Sort sort = new Sort(direction, "score").and(new Sort(Sort.Direction.ASC, "id"));
+            assertEquals(direction + " order", ids(reference(specification, sort, 40)),
+                    ids(sharded.findAll(Customer.class, specification, sort, 40, 0).get()));
+        }
+    }
+
+    @Test
+    public void countsAcrossShards() throws Exception {
+        Customer model = new Customer();
+        model.setCategory(GENERATOR.category(2));
+        Specification<Customer> specification = specification(model, null, "category");
+        assertEquals(Long.valueOf(reference(specification, null, 0).size()),
+                sharded.count(Customer.class, specification, 0).get());
+    }
+
+    @Test
+    public void routedQueryCountsPolicyOnce() throws Exception {
+        ConditionPolicy policy = new ConditionPolicy().setMinSelectivePredicates(2)
+                .setAction(ConditionPolicy.Action.CAP);
+        Customer model = new Customer();
+        model.setRegion(5);
+        sharded.findAll(Customer.class, specification(model, policy, "region"), null, 0, 0).get();
+        // 路由时计数, 分片上仅校验
+        assertEquals(1, policy.violationCount(ConditionPolicy.Violation.TOO_FEW_PREDICATES));
+    }
+
+    @Test
+    public void broadcastQueryCountsPolicyOnce() throws Exception {
+        ConditionPolicy policy = new ConditionPolicy().setMinSelectivePredicates(2)
+                .setAction(ConditionPolicy.Action.CAP).setMaxRows(5);
+        Customer model = new Customer();
+        model.setCategory(GENERATOR.category(3));
+        Specification<Customer> specification = specification(model, policy, "category");
+        assertEquals(SHARDS, sharded.route(Customer.class, specification).size());
+        assertEquals(1, policy.violationCount(ConditionPolicy.Violation.TOO_FEW_PREDICATES));
+
+        // 降级的上限同样作用于合并结果
+        assertEquals(5, sharded.findAll(Customer.class, specification, null, 0, 0).get().size());
+        assertEquals(2, policy.violationCount(ConditionPolicy.Violation.TOO_FEW_PREDICATES));
+        sharded.count(Customer.class, specification, 0).get();
+        assertEquals(3, policy.violationCount(ConditionPolicy.Violation.TOO_FEW_PREDICATES));
+    }
+
+    /* Support */
+
+    @SuppressWarnings("unchecked")
+    private static Specification<Customer> specification(Customer model, ConditionPolicy policy, String... names) {
+        return JpaConditionUtils.specification(model,
+                (root, query, cb, jc) -> jc.setPolicy(policy).clauseAnd(jc.equalsInclude(names)));
+    }
+
+    // 参照库上的单库查询
+    private static List<Customer> reference(Specification<Customer> specification, Sort sort, int limit) {
+        EntityManager em = reference.createEntityManager();
+        try {
+            Specification<Customer> ordered = (root, query, cb) -> {
+                if (Objects.nonNull(sort)) {
+                    List<Order> orders = new ArrayList<>();
+                    for (Sort.Order order : sort)
+                        orders.add(order.isAscending() ? cb.asc(root.get(order.getProperty()))
+                                : cb.desc(root.get(order.getProperty())));
+                    query.orderBy(orders);
+                }
+                return specification.toPredicate(root, query, cb);
+            };
+            return LoadScenarios.findAll(em, Customer.class, ordered, null, limit > 0 ? limit : null);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static List<Long> ids(List<Customer> customers) {
+        return customers.stream().map(Customer::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,54 @@
+package org.springframework.data.jpa.condition;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import java.util.Date;
+
+/**
+ * 测试实体-发货, 按 yyyyMMdd 分区键 shippedDay 分区
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see PartitionKey
+ * @since [产品/模块版本]
+ */
+@Entity
+@Table(name = "shipment")
+public class Shipment {
+    @Id
+    private Long id;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date shippedAt;
+
+    private Integer shippedDay;
+
+    /* Getter And Setter */
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Date getShippedAt() {
+        return shippedAt;
+    }
+
+    public void setShippedAt(Date shippedAt) {
+        this.shippedAt = shippedAt;
+    }
+
+    public Integer getShippedDay() {
+        return shippedDay;
+    }
+
+    public void setShippedDay(Integer shippedDay) {
+        this.shippedDay = shippedDay;
+    }
+}
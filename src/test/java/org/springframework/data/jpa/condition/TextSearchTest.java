@@ -0,0 +1,121 @@
+package org.springframework.data.jpa.condition;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 文本检索索引测试, 未加载的索引仅包含部分数据以模拟滞后
+ *
+ * @author TianGanLin
+ * @version [版本号, 2017/9/1]
+ * @see TextSearchProperty
+ * @since [产品/模块版本]
+ */
+public class TextSearchTest {
+    private static final DataGenerator GENERATOR = new DataGenerator(5L).setCustomers(100).setOrdersPerCustomer(0);
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeClass
+    public static void setUp() {
+        entityManagerFactory = H2Persistence.create("condition-text");
+        GENERATOR.generate(entityManagerFactory);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        TextSearchProperty.undeclare(Customer.class, "code");
+        if (Objects.nonNull(entityManagerFactory)) entityManagerFactory.close();
+    }
+
+    @Before
+    public void declarePartialIndex() {
+        NGramTextSearchIndex index = new NGramTextSearchIndex();
+        // 仅索引前10行
+        for (long id = 1; id <= 10; id++)
+            index.index(id, GENERATOR.customer(id).getCode());
+        TextSearchProperty.declare(Customer.class, "code", "id", index);
+    }
+
+    @Test
+    public void partialIndexMatchesAllRows() {
+        assertFalse(property().isComplete());
+        assertEquals(Collections.singletonList(7L), ids(GENERATOR.customer(7).getCode()));
+        assertEquals(Collections.singletonList(42L), ids(GENERATOR.customer(42).getCode()));
+        // C000000 同时是已索引与未索引行的前缀, C00000001 至 C00000099
+        assertEquals(99, ids("C000000").size());
+    }
+
+    @Test
+    public void loadedIndexUsesCandidates() {
+        load();
+        assertTrue(property().isComplete());
+        assertEquals(99, ids("C000000").size());
+        // 移除后结果缺少该行, 说明按候选主键过滤
+        property().getIndex().remove(42L);
+        assertEquals(98, ids("C000000").size());
+    }
+
+    @Test
+    public void invalidatedIndexFallsBackToLike() {
+        load();
+        property().getIndex().remove(42L);
+        TextSearchProperty.invalidate(Customer.class);
+        assertFalse(property().isComplete());
+        assertEquals(Collections.singletonList(42L), ids(GENERATOR.customer(42).getCode()));
+        assertEquals(99, ids("C000000").size());
+    }
+
+    @Test
+    public void wildcardFallsBackToLike() {
+        // C0000004_ 匹配 C00000040 至 C00000049
+        assertEquals(10, ids("C0000004_").size());
+    }
+
+    @Test
+    public void defaultIndexIgnoresCase() {
+        NGramTextSearchIndex index = new NGramTextSearchIndex();
+        index.index(1L, "Hello World");
+        assertEquals(Collections.singleton(1L), index.search("hello"));
+    }
+
+    private static TextSearchProperty property() {
+        return TextSearchProperty.of(Customer.class, "code");
+    }
+
+    private static void load() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            TextSearchProperty.load(em, Customer.class);
+        } finally {
+            em.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> ids(String code) {
+        Customer model = new Customer();
+        model.setCode(code);
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            return LoadScenarios.findAll(em, Customer.class, JpaConditionUtils.specification(model,
+                    (root, query, cb, jc) -> jc.clauseAnd(jc.likesInclude("code"))), null, null)
+                    .stream().map(Customer::getId).sorted().collect(Collectors.toList());
+        } finally {
+            em.close();
+        }
+    }
+}